@@ -0,0 +1,92 @@
+package com.github.takahirom.multiwindowapplauncher;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.github.takahirom.multiwindowapplauncher.catalog.AppCatalog;
+import com.github.takahirom.multiwindowapplauncher.launch.LaunchStats;
+import com.github.takahirom.multiwindowapplauncher.launch.StartupPhase;
+
+/**
+ * Starts warming the app catalog as soon as the process is up, so the picker is usually ready
+ * by the time it is opened, and measures how long a cold start takes to its first frame.
+ */
+public class LauncherApplication extends Application {
+    private boolean activityCreated;
+    private Activity coldStartActivity;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Wait until the main thread is idle so warming never delays the first frame; the
+        // catalog itself then loads on background priority threads.
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                AppCatalog.getInstance(LauncherApplication.this).load();
+                return false;
+            }
+        });
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                if (!activityCreated) {
+                    activityCreated = true;
+                    // Only a process started for MainActivity is a cold start of the launcher.
+                    if (activity instanceof MainActivity) {
+                        coldStartActivity = activity;
+                    }
+                }
+            }
+
+            @Override
+            public void onActivityStarted(Activity activity) {
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+                if (activity == coldStartActivity) {
+                    coldStartActivity = null;
+                    reportFirstFrame(activity.getWindow().getDecorView());
+                }
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+                if (activity == coldStartActivity) {
+                    coldStartActivity = null;
+                }
+            }
+        });
+    }
+
+    private static void reportFirstFrame(final View decorView) {
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                LaunchStats.getInstance().recordStartup(StartupPhase.COLD_START_TO_FIRST_FRAME,
+                        LaunchStats.now() - Process.getStartElapsedRealtime() * 1000);
+                return true;
+            }
+        });
+    }
+}
@@ -2,35 +2,58 @@ package com.github.takahirom.multiwindowapplauncher;
 
 import android.app.ProgressDialog;
 import android.content.DialogInterface;
-import android.graphics.drawable.Drawable;
+import android.content.Intent;
 import android.os.Bundle;
+import android.provider.Settings;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.SwitchCompat;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.SubMenu;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
-import android.widget.TextView;
+import android.widget.Toast;
 
-import com.github.takahirom.multiwindowapplauncher.compat.LauncherActivityInfoCompat;
-import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
-import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppCatalog;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+import com.github.takahirom.multiwindowapplauncher.catalog.CatalogDiff;
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentKey;
+import com.github.takahirom.multiwindowapplauncher.catalog.LaunchHistory;
+import com.github.takahirom.multiwindowapplauncher.catalog.SortOrder;
+import com.github.takahirom.multiwindowapplauncher.icon.IconLoader;
+import com.github.takahirom.multiwindowapplauncher.launch.KillPolicy;
+import com.github.takahirom.multiwindowapplauncher.launch.LaunchStats;
+import com.github.takahirom.multiwindowapplauncher.launch.ProcessKiller;
+import com.github.takahirom.multiwindowapplauncher.launch.StartupPhase;
+import com.github.takahirom.multiwindowapplauncher.pair.AppPair;
+import com.github.takahirom.multiwindowapplauncher.pair.AppPairStore;
+import com.github.takahirom.multiwindowapplauncher.pair.PairLauncher;
+import com.github.takahirom.multiwindowapplauncher.picker.AppPicker;
+import com.github.takahirom.multiwindowapplauncher.picker.AppPickerAdapter;
+import com.github.takahirom.multiwindowapplauncher.shortcut.ShortcutInstaller;
 
+import java.io.File;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
-import rx.AsyncEmitter;
 import rx.Observable;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.functions.Action1;
-import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements AppCatalog.Listener,
+        AppPickerAdapter.OnAppSelectedListener, AppPicker.OnShortcutsRequestedListener,
+        AppPicker.OnPairRequestedListener, PairLauncher.Callback {
 
     private ProgressDialog progressDialog;
+    private AppCatalog appCatalog;
+    private AppPicker appPicker;
+    private PairLauncher pairLauncher;
+    private List<AppPair> menuPairs = Collections.emptyList();
+    private long listRequestTime;
+    private boolean listWasWarm;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,72 +66,268 @@ public class MainActivity extends AppCompatActivity {
                 startLoading();
             }
         });
+        appPicker = new AppPicker(this, new IconLoader(this), this, this);
+        appPicker.setSortOrder(SortOrder.get(this));
+        appPicker.setOnPairRequestedListener(this);
+        pairLauncher = new PairLauncher(this);
+        pairLauncher.prepareSaved(new Runnable() {
+            @Override
+            public void run() {
+                // The pairs submenu is built from the pairs read so far.
+                invalidateOptionsMenu();
+            }
+        });
+        // LauncherApplication has already started warming the catalog.
+        appCatalog = AppCatalog.getInstance(this);
+        appCatalog.addListener(this);
     }
 
-    private void startLoading() {
-        progressDialog = new ProgressDialog(MainActivity.this);
-        progressDialog.show();
+    @Override
+    protected void onDestroy() {
+        appCatalog.removeListener(this);
+        appPicker.destroy();
+        super.onDestroy();
+    }
 
-        Observable
-                .fromAsync(new Action1<AsyncEmitter<List<LauncherActivityInfoCompat>>>() {
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        switch (KillPolicy.get(this)) {
+            case ALWAYS:
+                menu.findItem(R.id.action_kill_always).setChecked(true);
+                break;
+            case IF_NOT_FOREGROUND:
+                menu.findItem(R.id.action_kill_if_not_foreground).setChecked(true);
+                break;
+            case NEVER:
+                menu.findItem(R.id.action_kill_never).setChecked(true);
+                break;
+        }
+        switch (SortOrder.get(this)) {
+            case LABEL:
+                menu.findItem(R.id.action_sort_label).setChecked(true);
+                break;
+            case NEWEST_FIRST:
+                menu.findItem(R.id.action_sort_newest_first).setChecked(true);
+                break;
+            case PACKAGE:
+                menu.findItem(R.id.action_sort_package).setChecked(true);
+                break;
+            case LAUNCH_FREQUENCY:
+                menu.findItem(R.id.action_sort_launch_frequency).setChecked(true);
+                break;
+            case PROFILE:
+                menu.findItem(R.id.action_sort_profile).setChecked(true);
+                break;
+        }
+        menuPairs = AppPairStore.getInstance(this).peekPairs();
+        final MenuItem pairsItem = menu.findItem(R.id.action_pairs);
+        pairsItem.setVisible(!menuPairs.isEmpty());
+        final SubMenu pairsMenu = pairsItem.getSubMenu();
+        pairsMenu.removeGroup(R.id.group_pairs);
+        for (int i = 0; i < menuPairs.size(); i++) {
+            pairsMenu.add(R.id.group_pairs, Menu.NONE, i, menuPairs.get(i).getLabel());
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getGroupId() == R.id.group_pairs) {
+            pairLauncher.launch(this, menuPairs.get(item.getOrder()), this);
+            return true;
+        }
+        switch (item.getItemId()) {
+            case R.id.action_kill_always:
+                KillPolicy.ALWAYS.save(this);
+                return true;
+            case R.id.action_kill_if_not_foreground:
+                KillPolicy.IF_NOT_FOREGROUND.save(this);
+                if (!ProcessKiller.hasUsageAccess(this)) {
+                    requestUsageAccess();
+                }
+                return true;
+            case R.id.action_kill_never:
+                KillPolicy.NEVER.save(this);
+                return true;
+            case R.id.action_sort_label:
+                setSortOrder(SortOrder.LABEL);
+                return true;
+            case R.id.action_sort_newest_first:
+                setSortOrder(SortOrder.NEWEST_FIRST);
+                return true;
+            case R.id.action_sort_package:
+                setSortOrder(SortOrder.PACKAGE);
+                return true;
+            case R.id.action_sort_launch_frequency:
+                setSortOrder(SortOrder.LAUNCH_FREQUENCY);
+                return true;
+            case R.id.action_sort_profile:
+                setSortOrder(SortOrder.PROFILE);
+                return true;
+            case R.id.action_remove_pair:
+                showRemovePairDialog();
+                return true;
+            case R.id.action_export_launch_stats:
+                exportLaunchStats();
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void requestUsageAccess() {
+        new AlertDialog.Builder(this)
+                .setMessage("To tell whether an app is in the foreground, allow usage access. Until then apps are always killed.")
+                .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
                     @Override
-                    public void call(final AsyncEmitter<List<LauncherActivityInfoCompat>> emitter) {
-                        final List<LauncherActivityInfoCompat> activityList = LauncherAppsCompat.getInstance(MainActivity.this).getActivityList(null, UserHandleCompat.myUserHandle());
-                        emitter.onNext(activityList);
+                    public void onClick(DialogInterface dialog, int which) {
+                        startActivity(new Intent(Settings.ACTION_USAGE_ACCESS_SETTINGS));
                     }
-                }, AsyncEmitter.BackpressureMode.BUFFER)
-                .map(new Func1<List<LauncherActivityInfoCompat>, List<LauncherActivityInfoCompat>>() {
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    private void setSortOrder(SortOrder order) {
+        order.save(this);
+        appPicker.setSortOrder(order);
+    }
+
+    private void showRemovePairDialog() {
+        final List<AppPair> pairs = AppPairStore.getInstance(this).peekPairs();
+        final CharSequence[] labels = new CharSequence[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            labels[i] = pairs.get(i).getLabel();
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Remove pair")
+                .setItems(labels, new DialogInterface.OnClickListener() {
                     @Override
-                    public List<LauncherActivityInfoCompat> call(List<LauncherActivityInfoCompat> launcherActivityInfoCompats) {
-                        Collections.sort(launcherActivityInfoCompats, new Comparator<LauncherActivityInfoCompat>() {
-                            @Override
-                            public int compare(LauncherActivityInfoCompat launcherActivityInfoCompat, LauncherActivityInfoCompat t1) {
-                                return launcherActivityInfoCompat.getLabel().toString().compareTo(t1.getLabel().toString());
-                            }
-                        });
-                        return launcherActivityInfoCompats;
+                    public void onClick(DialogInterface dialog, int which) {
+                        AppPairStore.getInstance(MainActivity.this).remove(pairs.get(which));
+                    }
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    private void exportLaunchStats() {
+        final File file = new File(getExternalFilesDir(null), "launch_latency.tsv");
+        Observable
+                .fromCallable(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return LaunchStats.getInstance().export(file);
                     }
                 })
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Action1<List<LauncherActivityInfoCompat>>() {
+                .subscribe(new Action1<Boolean>() {
                     @Override
-                    public void call(final List<LauncherActivityInfoCompat> applicationInfos) {
-
-
-                        onLoadFinish(applicationInfos);
+                    public void call(Boolean exported) {
+                        Toast.makeText(MainActivity.this, exported ? "Exported to " + file : "Fail export", Toast.LENGTH_SHORT).show();
                     }
                 });
+    }
+
+    private void startLoading() {
+        listRequestTime = LaunchStats.now();
+        final List<AppEntry> entries = appCatalog.getEntries();
+        listWasWarm = entries != null;
+        if (entries != null) {
+            onLoadFinish(entries);
+            return;
+        }
+        progressDialog = new ProgressDialog(MainActivity.this);
+        progressDialog.show();
+        appCatalog.load();
+    }
+
+    @Override
+    public void onCatalogChanged(CatalogDiff diff) {
+        if (progressDialog != null && progressDialog.isShowing()) {
+            progressDialog.hide();
+            onLoadFinish(diff.getEntries());
+        } else {
+            appPicker.setEntries(diff.getEntries());
+        }
+    }
+
+    private void onLoadFinish(final List<AppEntry> entries) {
+        appPicker.setLaunchRanking(LaunchHistory.getInstance(this).peekRankedKeys());
+        appPicker.setEntries(entries);
+        appPicker.show(new Runnable() {
+            @Override
+            public void run() {
+                final long latency = LaunchStats.now() - listRequestTime;
+                final LaunchStats stats = LaunchStats.getInstance();
+                stats.recordStartup(StartupPhase.TAP_TO_LIST, latency);
+                if (!listWasWarm) {
+                    stats.recordStartup(StartupPhase.TAP_TO_LIST_NOT_WARM, latency);
+                }
+            }
+        });
+    }
 
+    @Override
+    public void onAppSelected(AppEntry entry) {
+        appPicker.dismiss();
+        final SwitchCompat switchButton = (SwitchCompat) MainActivity.this.findViewById(R.id.switch_create_shortcut);
+        MultiWindowAppLaunchActivity.start(MainActivity.this, entry.getComponentName(), entry.getUserSerial(), switchButton.isChecked());
     }
 
-    private void onLoadFinish(final List<LauncherActivityInfoCompat> applicationInfos) {
-        progressDialog.hide();
-        final ArrayAdapter<String> adapter = new ArrayAdapter<String>(MainActivity.this, android.R.layout.simple_list_item_1) {
+    @Override
+    public void onShortcutsRequested(List<AppEntry> entries) {
+        appPicker.dismiss();
+        Toast.makeText(this, "Creating " + entries.size() + " shortcuts", Toast.LENGTH_SHORT).show();
+        new ShortcutInstaller(this).installAll(entries, new ShortcutInstaller.BulkCallback() {
             @Override
-            public View getView(int position, View convertView, ViewGroup parent) {
-                final View view = super.getView(position, convertView, parent);
-                final TextView textView = view instanceof TextView ? ((TextView) view) : null;
-                if (textView != null) {
-                    final Drawable drawable = applicationInfos.get(position).getIcon(0);
-                    final int size = getResources().getDimensionPixelSize(android.R.dimen.app_icon_size);
-                    drawable.setBounds(0, 0, size, size);
-                    textView.setCompoundDrawables(drawable, null, null, null);
+            public void onShortcutsInstalled(List<ShortcutInstaller.Result> results) {
+                if (!isDestroyed()) {
+                    showShortcutReport(results);
                 }
-                return view;
             }
-        };
-        for (LauncherActivityInfoCompat applicationInfo : applicationInfos) {
-            adapter.add(applicationInfo.getLabel().toString());
+        });
+    }
+
+    @Override
+    public void onPairRequested(AppEntry primary, AppEntry secondary) {
+        appPicker.dismiss();
+        final AppPair pair = new AppPair(new ComponentKey(primary.getComponentName(), primary.getUserSerial()),
+                new ComponentKey(secondary.getComponentName(), secondary.getUserSerial()),
+                primary.getLabel() + " | " + secondary.getLabel());
+        AppPairStore.getInstance(this).add(pair);
+        pairLauncher.prepare(Collections.singletonList(pair));
+        Toast.makeText(this, "Saved pair " + pair.getLabel(), Toast.LENGTH_SHORT).show();
+    }
+
+    @Override
+    public void onPairUnavailable(AppPair pair, ComponentKey unavailable) {
+        Toast.makeText(this, unavailable.componentName.flattenToShortString() + " is disabled or not installed",
+                Toast.LENGTH_SHORT).show();
+    }
+
+    private void showShortcutReport(List<ShortcutInstaller.Result> results) {
+        int failed = 0;
+        final CharSequence[] lines = new CharSequence[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            final ShortcutInstaller.Result result = results.get(i);
+            if (result.isSuccess()) {
+                lines[i] = result.getLabel() + ": created";
+            } else {
+                failed++;
+                lines[i] = result.getLabel() + ": failed (" + result.getError() + ")";
+            }
         }
-        new AlertDialog
-                .Builder(MainActivity.this)
-                .setAdapter(adapter, new DialogInterface.OnClickListener() {
-                    @Override
-                    public void onClick(DialogInterface dialogInterface, int i) {
-                        final SwitchCompat switchButton = (SwitchCompat) MainActivity.this.findViewById(R.id.switch_create_shortcut);
-                        MultiWindowAppLaunchActivity.start(MainActivity.this, applicationInfos.get(i), switchButton.isChecked());
-                    }
-                }).show();
+        new AlertDialog.Builder(this)
+                .setTitle((results.size() - failed) + " created, " + failed + " failed")
+                .setItems(lines, null)
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
     }
 }
@@ -1,33 +1,103 @@
 package com.github.takahirom.multiwindowapplauncher;
 
 import android.app.Activity;
-import android.app.ActivityManager;
 import android.content.ComponentName;
+import android.content.Context;
 import android.content.Intent;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
+import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.widget.Toast;
 
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentKey;
+import com.github.takahirom.multiwindowapplauncher.catalog.LaunchHistory;
 import com.github.takahirom.multiwindowapplauncher.compat.LauncherActivityInfoCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+import com.github.takahirom.multiwindowapplauncher.launch.KillPolicy;
+import com.github.takahirom.multiwindowapplauncher.launch.LaunchPhase;
+import com.github.takahirom.multiwindowapplauncher.launch.LaunchStats;
+import com.github.takahirom.multiwindowapplauncher.launch.ProcessKiller;
+import com.github.takahirom.multiwindowapplauncher.pair.AppPair;
+import com.github.takahirom.multiwindowapplauncher.shortcut.ShortcutInstaller;
 
+import java.util.Arrays;
+
+/**
+ * Trampoline that waits until it is in multi-window mode and then launches the target into its
+ * half of the screen. For a pair, the secondary activity is launched adjacent first and the
+ * primary one follows as soon as the adjacent window has taken focus.
+ */
 public class MultiWindowAppLaunchActivity extends AppCompatActivity {
 
     public static final String EXTRA_APPLICATION_PACKAGE_NAME = "extra_application_package_name";
     public static final String EXTRA_APPLICATION_ACTIVITY = "extra_application_activity";
     public static final String EXTRA_CREATE_SHORTCUT = "extra_create_shortcut";
+    public static final String EXTRA_LAUNCH_TAP_TIME = "extra_launch_tap_time";
+    public static final String EXTRA_USER_SERIAL = "extra_user_serial";
+    public static final String EXTRA_ADJACENT_PACKAGE_NAME = "extra_adjacent_package_name";
+    public static final String EXTRA_ADJACENT_ACTIVITY = "extra_adjacent_activity";
+    public static final String EXTRA_ADJACENT_USER_SERIAL = "extra_adjacent_user_serial";
+    /** Launch the primary activity anyway if the adjacent one was not placed by then. */
+    private static final long ADJACENT_TIMEOUT_MILLIS = 1000;
     private ComponentName componentName;
+    private UserHandleCompat user;
+    private long userSerial;
+    private long tapTime;
+    private long createTime;
+    private boolean isLaunching;
+    private ComponentName adjacentComponentName;
+    private UserHandleCompat adjacentUser;
+    private long adjacentUserSerial;
+    private boolean isAwaitingAdjacent;
+    private long adjacentStartTime;
+    private final Handler handler = new Handler();
+    private final Runnable launchPrimary = new Runnable() {
+        @Override
+        public void run() {
+            onAdjacentPlaced();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createTime = LaunchStats.now();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_multi_window_app_launch);
         componentName = new ComponentName(getIntent().getStringExtra(EXTRA_APPLICATION_PACKAGE_NAME), getIntent().getStringExtra(EXTRA_APPLICATION_ACTIVITY));
+        final UserManagerCompat userManager = UserManagerCompat.getInstance(this);
+        if (getIntent().hasExtra(EXTRA_USER_SERIAL)) {
+            userSerial = getIntent().getLongExtra(EXTRA_USER_SERIAL, 0);
+            user = userManager.getUserForSerialNumber(userSerial);
+        } else {
+            user = UserHandleCompat.myUserHandle();
+            userSerial = userManager.getSerialNumberForUser(user);
+        }
+        if (getIntent().hasExtra(EXTRA_ADJACENT_ACTIVITY)) {
+            adjacentComponentName = new ComponentName(getIntent().getStringExtra(EXTRA_ADJACENT_PACKAGE_NAME), getIntent().getStringExtra(EXTRA_ADJACENT_ACTIVITY));
+            adjacentUserSerial = getIntent().getLongExtra(EXTRA_ADJACENT_USER_SERIAL, 0);
+            adjacentUser = userManager.getUserForSerialNumber(adjacentUserSerial);
+        }
+        if (user == null || (adjacentComponentName != null && adjacentUser == null)) {
+            // The profile was removed after the shortcut or pair was saved. Never fall back to
+            // the current user, that would open another copy of the app or none at all.
+            Toast.makeText(getApplicationContext(), "The work profile of this app no longer exists", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        if (adjacentComponentName != null && isOtherProfile(adjacentUser) && !isOtherProfile(user)) {
+            // LauncherApps can't launch adjacent, so the intent launch must be the adjacent one.
+            swapWithAdjacent();
+        }
+
+        tapTime = getIntent().getLongExtra(EXTRA_LAUNCH_TAP_TIME, 0);
+        // Measure a tap only once, not again when the task is brought back from recents.
+        getIntent().removeExtra(EXTRA_LAUNCH_TAP_TIME);
+        if (tapTime > 0) {
+            LaunchStats.getInstance().record(componentName.getPackageName(), LaunchPhase.TAP_TO_TRAMPOLINE, createTime - tapTime);
+        }
 
         final boolean isCreateShortcut = getIntent().getBooleanExtra(EXTRA_CREATE_SHORTCUT, false);
         if (isCreateShortcut) {
@@ -38,33 +108,31 @@ public class MultiWindowAppLaunchActivity extends AppCompatActivity {
         }
     }
 
-    private void createShortCut() {
-        final Intent launchIntent = getLaunchIntent(this, false, componentName);
-
-        Intent addIntent = new Intent();
-        addIntent.putExtra(Intent.EXTRA_SHORTCUT_INTENT, launchIntent);
-        final Drawable icon;
-        final ApplicationInfo applicationInfo;
-        try {
-            applicationInfo = getPackageManager().getApplicationInfo(componentName.getPackageName(), 0);
-            icon = getPackageManager().getApplicationIcon(componentName.getPackageName());
-        } catch (PackageManager.NameNotFoundException e) {
-            Toast.makeText(this, "Fail create shortcut", Toast.LENGTH_SHORT).show();
-            return;
-        }
-        addIntent.putExtra(Intent.EXTRA_SHORTCUT_NAME, "MW " + getPackageManager().getApplicationLabel(applicationInfo));
-        Bitmap bitmap;
-        if (icon instanceof BitmapDrawable) {
-            bitmap = ((BitmapDrawable) icon).getBitmap();
-        } else {
-            bitmap = Bitmap.createBitmap(icon.getIntrinsicWidth(), icon.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
-        }
-        bitmap = Bitmap.createScaledBitmap(bitmap, 192, 192, false);
-        addIntent.putExtra(Intent.EXTRA_SHORTCUT_ICON, bitmap);
+    private static boolean isOtherProfile(UserHandleCompat user) {
+        return user != null && !user.equals(UserHandleCompat.myUserHandle());
+    }
 
-        addIntent.setAction("com.android.launcher.action.INSTALL_SHORTCUT");
-//        addIntent.putExtra("duplicate", false);  //may it's already there so don't duplicate
-        getApplicationContext().sendBroadcast(addIntent);
+    private void swapWithAdjacent() {
+        final ComponentName swappedComponentName = componentName;
+        final UserHandleCompat swappedUser = user;
+        final long swappedUserSerial = userSerial;
+        componentName = adjacentComponentName;
+        user = adjacentUser;
+        userSerial = adjacentUserSerial;
+        adjacentComponentName = swappedComponentName;
+        adjacentUser = swappedUser;
+        adjacentUserSerial = swappedUserSerial;
+    }
+
+    private void createShortCut() {
+        new ShortcutInstaller(this).install(componentName, userSerial, new ShortcutInstaller.Callback() {
+            @Override
+            public void onShortcutInstalled(ComponentName componentName, boolean success) {
+                if (!success) {
+                    Toast.makeText(getApplicationContext(), "Fail create shortcut", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 
     @Override
@@ -75,24 +143,143 @@ public class MultiWindowAppLaunchActivity extends AppCompatActivity {
         }
     }
 
-    private void startApp(ComponentName componentName) {
-        ActivityManager am = (ActivityManager) getSystemService(Activity.ACTIVITY_SERVICE);
-        am.killBackgroundProcesses(componentName.getPackageName());
-        final Intent intent = new Intent(Intent.ACTION_VIEW);
-        intent.setComponent(componentName);
-        startActivityForResult(intent, 0);
+    private void startApp(final ComponentName componentName) {
+        if (isLaunching || isFinishing()) {
+            return;
+        }
+        isLaunching = true;
+        final LaunchHistory launchHistory = LaunchHistory.getInstance(this);
+        launchHistory.record(componentName, userSerial);
+        final LaunchStats stats = LaunchStats.getInstance();
+        final String packageName = componentName.getPackageName();
+        final long multiWindowTime = LaunchStats.now();
+        stats.record(packageName, LaunchPhase.WAIT_FOR_MULTI_WINDOW, multiWindowTime - createTime);
+
+        if (adjacentComponentName == null) {
+            new ProcessKiller(this).killThenLaunch(packageName, KillPolicy.get(this), new Runnable() {
+                @Override
+                public void run() {
+                    launchPrimary();
+                }
+            });
+            return;
+        }
+        launchHistory.record(adjacentComponentName, adjacentUserSerial);
+        new ProcessKiller(this).killThenLaunch(
+                Arrays.asList(adjacentComponentName.getPackageName(), packageName), KillPolicy.get(this),
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        launchAdjacent();
+                    }
+                });
+    }
+
+    private void launchAdjacent() {
+        if (isDestroyed()) {
+            return;
+        }
+        adjacentStartTime = LaunchStats.now();
+        isAwaitingAdjacent = true;
+        if (isOtherProfile(adjacentUser)) {
+            // Both are in other profiles, the system decides where this one goes.
+            LauncherAppsCompat.getInstance(this).startActivityForProfile(adjacentComponentName, adjacentUser, null, null);
+        } else {
+            final Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setComponent(adjacentComponentName);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT);
+            startActivity(intent);
+        }
+        handler.postDelayed(launchPrimary, ADJACENT_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Only the focused activity is resumed in multi-window mode, so losing it means the
+        // adjacent window is in place.
+        if (isAwaitingAdjacent) {
+            onAdjacentPlaced();
+        }
+    }
+
+    private void onAdjacentPlaced() {
+        if (!isAwaitingAdjacent) {
+            return;
+        }
+        isAwaitingAdjacent = false;
+        handler.removeCallbacks(launchPrimary);
+        LaunchStats.getInstance().record(adjacentComponentName.getPackageName(), LaunchPhase.PLACE_ADJACENT,
+                LaunchStats.now() - adjacentStartTime);
+        launchPrimary();
+    }
+
+    private void launchPrimary() {
+        if (isDestroyed()) {
+            return;
+        }
+        final LaunchStats stats = LaunchStats.getInstance();
+        final String packageName = componentName.getPackageName();
+        final long launchTime = LaunchStats.now();
+        if (isOtherProfile(user)) {
+            // Activities of other profiles can only be started through LauncherApps.
+            LauncherAppsCompat.getInstance(this).startActivityForProfile(componentName, user, null, null);
+        } else {
+            final Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setComponent(componentName);
+            startActivityForResult(intent, 0);
+        }
+        final long startedTime = LaunchStats.now();
+        stats.record(packageName, LaunchPhase.START_ACTIVITY, startedTime - launchTime);
+        stats.record(packageName, LaunchPhase.TOTAL, startedTime - (tapTime > 0 ? tapTime : createTime));
         finish();
     }
 
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacks(launchPrimary);
+        super.onDestroy();
+    }
+
     public static void start(Activity activity, LauncherActivityInfoCompat applicationInfo, boolean isCreateShortCut) {
-        final ComponentName componentName = applicationInfo.getComponentName();
+        start(activity, applicationInfo.getComponentName(), isCreateShortCut);
+    }
+
+    public static void start(Activity activity, ComponentName componentName, boolean isCreateShortCut) {
         final Intent intent = getLaunchIntent(activity, isCreateShortCut, componentName);
+        intent.putExtra(EXTRA_LAUNCH_TAP_TIME, LaunchStats.now());
+        activity.startActivity(intent);
+    }
+
+    /**
+     * Starts the activity of the given profile, identified by its user serial number.
+     */
+    public static void start(Activity activity, ComponentName componentName, long userSerial, boolean isCreateShortCut) {
+        final Intent intent = getLaunchIntent(activity, isCreateShortCut, componentName);
+        intent.putExtra(EXTRA_USER_SERIAL, userSerial);
+        intent.putExtra(EXTRA_LAUNCH_TAP_TIME, LaunchStats.now());
+        activity.startActivity(intent);
+    }
+
+    /**
+     * Starts both activities of the pair side by side. The activities should have been
+     * validated, see {@link com.github.takahirom.multiwindowapplauncher.pair.PairLauncher}.
+     */
+    public static void startPair(Activity activity, AppPair pair, long tapTime) {
+        final ComponentKey primary = pair.getPrimary();
+        final ComponentKey secondary = pair.getSecondary();
+        final Intent intent = getLaunchIntent(activity, false, primary.componentName);
+        intent.putExtra(EXTRA_USER_SERIAL, primary.userSerial);
+        intent.putExtra(EXTRA_ADJACENT_PACKAGE_NAME, secondary.componentName.getPackageName());
+        intent.putExtra(EXTRA_ADJACENT_ACTIVITY, secondary.componentName.getClassName());
+        intent.putExtra(EXTRA_ADJACENT_USER_SERIAL, secondary.userSerial);
+        intent.putExtra(EXTRA_LAUNCH_TAP_TIME, tapTime);
         activity.startActivity(intent);
     }
 
     @NonNull
-    private static Intent getLaunchIntent(Activity activity, boolean isCreateShortCut, ComponentName componentName) {
-        final Intent intent = new Intent(activity, MultiWindowAppLaunchActivity.class);
+    public static Intent getLaunchIntent(Context context, boolean isCreateShortCut, ComponentName componentName) {
+        final Intent intent = new Intent(context, MultiWindowAppLaunchActivity.class);
         intent.putExtra(EXTRA_APPLICATION_PACKAGE_NAME, componentName.getPackageName());
         intent.putExtra(EXTRA_APPLICATION_ACTIVITY, componentName.getClassName());
         intent.putExtra(EXTRA_CREATE_SHORTCUT, isCreateShortCut);
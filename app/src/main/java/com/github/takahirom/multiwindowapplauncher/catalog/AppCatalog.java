@@ -0,0 +1,323 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+import com.github.takahirom.multiwindowapplauncher.icon.IconCache;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Long-lived, in-memory app catalog.
+ * The first load comes from the snapshot and is verified against a full enumeration once.
+ * After that the catalog listens to package changes and re-queries only the affected packages,
+ * once per burst of package events.
+ * Activities of all profiles are listed, each with its own entry. Between changes the entries
+ * are kept packed in a {@link CompactCatalog}.
+ * All mutations run on a single worker thread; listeners are called on the main thread.
+ */
+public class AppCatalog {
+
+    public interface Listener {
+        void onCatalogChanged(CatalogDiff diff);
+    }
+
+    private static AppCatalog instance;
+    private static final Object instanceLock = new Object();
+
+    public static AppCatalog getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new AppCatalog(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final Context context;
+    private final AppCatalogLoader loader;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new BackgroundThreadFactory("catalog"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final PackageChangeCoalescer packageChanges = new PackageChangeCoalescer(executor,
+            new PackageChangeCoalescer.Callback() {
+                @Override
+                public void onPackagesChanged(Map<UserHandleCompat, PackageChangeSet> changes) {
+                    refreshPackages(changes);
+                }
+            });
+    private volatile CompactCatalog entries;
+    private boolean verified;
+
+    private AppCatalog(final Context context) {
+        this.context = context;
+        loader = new AppCatalogLoader(context);
+        // Serial lookups for every entry of the snapshot and the loads go through this cache.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                UserManagerCompat.getInstance(context).enableAndResetCache();
+            }
+        });
+        // LauncherApps binds its callbacks to the looper of the registering thread.
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                LauncherAppsCompat.getInstance(context).addOnAppsChangedCallback(packageChanges);
+            }
+        });
+        final IntentFilter profileFilter = new IntentFilter();
+        profileFilter.addAction(LauncherAppsCompat.ACTION_MANAGED_PROFILE_ADDED);
+        profileFilter.addAction(LauncherAppsCompat.ACTION_MANAGED_PROFILE_REMOVED);
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                onProfilesChanged();
+            }
+        }, profileFilter);
+    }
+
+    /**
+     * Returns the loaded entry of the activity in the given profile, or null if the catalog
+     * is not loaded or does not contain it.
+     */
+    @Nullable
+    public AppEntry findEntry(ComponentName componentName, long userSerial) {
+        final CompactCatalog current = entries;
+        if (current == null) {
+            return null;
+        }
+        final int index = current.indexOf(componentName, userSerial);
+        return index >= 0 ? current.get(index) : null;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the current entries sorted for display, or null if nothing has been loaded yet.
+     */
+    @Nullable
+    public List<AppEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Makes sure the catalog is populated. Listeners are notified when the entries first become
+     * available and again if the snapshot turns out to be stale.
+     */
+    public void load() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Read the history before anything is published, the picker takes the
+                // ranking along with the first entries without waiting for it.
+                LaunchHistory.getInstance(context).getRankedKeys();
+                if (entries == null) {
+                    final List<AppEntry> snapshot = AppCatalogSnapshot.read(context);
+                    if (snapshot != null) {
+                        replaceAll(snapshot, false);
+                        warmTopEntries();
+                    }
+                }
+                if (!verified) {
+                    if (entries == null) {
+                        loadProgressively();
+                        warmTopEntries();
+                    } else {
+                        // The snapshot is in the current locale; only labels of updated
+                        // packages are loaded again.
+                        replaceAll(loader.loadAll(entries), true);
+                    }
+                    verified = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the icons of the most launched activities into the icon cache, so the first rows
+     * of the picker and the likely next pick never wait. Their labels are already resident.
+     */
+    private void warmTopEntries() {
+        final IconCache iconCache = IconCache.getInstance(context);
+        final int density = context.getResources().getDisplayMetrics().densityDpi;
+        for (String key : LaunchHistory.getInstance(context).getTopKeys(LaunchHistory.TOP_COUNT)) {
+            final ComponentKey componentKey = ComponentKey.parse(key);
+            final AppEntry entry = componentKey == null
+                    ? null : findEntry(componentKey.componentName, componentKey.userSerial);
+            if (entry != null) {
+                iconCache.getIcon(entry, density);
+            }
+        }
+    }
+
+    /**
+     * Used when there is no snapshot: publishes the most launched apps first and merges the
+     * remaining chunks into place as they are resolved. Other profiles load in parallel and
+     * are merged in after the current one. Only the first chunk builds a catalog, the others
+     * are inserted into the published one, so each chunk costs O(n) instead of a full sort.
+     */
+    private void loadProgressively() {
+        // One bulk stamp query for all profiles of this load.
+        final PackageStamps stamps = loader.getPackageStamps();
+        final List<Future<List<AppEntry>>> otherProfiles = loader.loadOtherProfilesAsync(stamps);
+        final Set<String> likelyPackages =
+                LaunchHistory.getInstance(context).getTopPackages(LaunchHistory.TOP_COUNT);
+        loader.loadChunked(UserHandleCompat.myUserHandle(), stamps, likelyPackages,
+                new AppCatalogLoader.ChunkListener() {
+                    @Override
+                    public void onChunk(List<AppEntry> sortedChunk) {
+                        publishAdded(sortedChunk);
+                    }
+                });
+        for (Future<List<AppEntry>> future : otherProfiles) {
+            final List<AppEntry> profileEntries = AppCatalogLoader.getResult(future);
+            if (!profileEntries.isEmpty()) {
+                publishAdded(profileEntries);
+            }
+        }
+        if (entries == null) {
+            // No launchable activity at all.
+            publishAdded(Collections.<AppEntry>emptyList());
+        }
+        AppCatalogSnapshot.write(context, entries);
+    }
+
+    /**
+     * Publishes the catalog with the entries, which have to be sorted by
+     * {@link AppCatalogLoader#LABEL_COMPARATOR} and must not be in the catalog yet.
+     */
+    private void publishAdded(List<AppEntry> sortedEntries) {
+        final CompactCatalog current = entries;
+        final CompactCatalog updated = current == null
+                ? CompactCatalog.of(sortedEntries) : current.withChanges(new BitSet(0), sortedEntries);
+        publish(updated, new CatalogDiff(updated, sortedEntries,
+                Collections.<AppEntry>emptyList(), Collections.<AppEntry>emptyList()));
+    }
+
+    private void replaceAll(List<AppEntry> loaded, boolean writeSnapshot) {
+        final List<AppEntry> before = entries == null
+                ? Collections.<AppEntry>emptyList() : entries;
+        final List<AppEntry> after = Collections.unmodifiableList(loaded);
+        final CatalogDiff diff = CatalogDiff.compute(after, before, after);
+        if (entries != null && diff.isEmpty()) {
+            return;
+        }
+        publish(CompactCatalog.of(after), diff);
+        if (writeSnapshot) {
+            AppCatalogSnapshot.write(context, after);
+        }
+    }
+
+    /**
+     * A work profile was added or removed: refreshes the user cache, drops the icons of removed
+     * profiles and reloads every profile.
+     */
+    private void onProfilesChanged() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final UserManagerCompat userManager = UserManagerCompat.getInstance(context);
+                final Set<Long> removedSerials = getProfileSerials(userManager);
+                userManager.enableAndResetCache();
+                removedSerials.removeAll(getProfileSerials(userManager));
+                for (long serial : removedSerials) {
+                    IconCache.getInstance(context).invalidateUser(serial);
+                }
+                if (entries != null) {
+                    replaceAll(loader.loadAll(), true);
+                }
+            }
+        });
+    }
+
+    private static Set<Long> getProfileSerials(UserManagerCompat userManager) {
+        final Set<Long> serials = new HashSet<>();
+        for (UserHandleCompat user : userManager.getUserProfiles()) {
+            serials.add(userManager.getSerialNumberForUser(user));
+        }
+        return serials;
+    }
+
+    /**
+     * Applies a batch of package changes with one diff, one publish and one snapshot write.
+     * Changed rows are merged into the packed catalog, which also updates every precomputed
+     * order by insertion.
+     */
+    private void refreshPackages(Map<UserHandleCompat, PackageChangeSet> changes) {
+        final CompactCatalog current = entries;
+        if (current == null) {
+            // Nothing loaded yet, the initial load picks up the change.
+            return;
+        }
+        final BitSet removedRows = new BitSet(current.size());
+        final List<AppEntry> after = new ArrayList<>();
+        final UserManagerCompat userManager = UserManagerCompat.getInstance(context);
+        final IconCache iconCache = IconCache.getInstance(context);
+        for (Map.Entry<UserHandleCompat, PackageChangeSet> userChanges : changes.entrySet()) {
+            final UserHandleCompat user = userChanges.getKey();
+            final long userSerial = userManager.getSerialNumberForUser(user);
+            for (String packageName : userChanges.getValue().getRemoved()) {
+                iconCache.invalidatePackage(packageName, userSerial);
+                current.findRows(packageName, userSerial, removedRows);
+            }
+            for (String packageName : userChanges.getValue().getUpdated()) {
+                // Icons can change without a new update stamp, e.g. when components are toggled.
+                iconCache.invalidatePackage(packageName, userSerial);
+                current.findRows(packageName, userSerial, removedRows);
+                after.addAll(loader.loadPackage(packageName, user));
+            }
+        }
+        final List<AppEntry> before = new ArrayList<>(removedRows.cardinality());
+        for (int row = removedRows.nextSetBit(0); row >= 0; row = removedRows.nextSetBit(row + 1)) {
+            before.add(current.get(row));
+        }
+        final CatalogDiff diff = CatalogDiff.compute(current, before, after);
+        if (diff.isEmpty()) {
+            return;
+        }
+        Collections.sort(after, AppCatalogLoader.LABEL_COMPARATOR);
+        final CompactCatalog updated = current.withChanges(removedRows, after);
+        publish(updated, diff);
+        AppCatalogSnapshot.write(context, updated);
+    }
+
+    private void publish(CompactCatalog compact, CatalogDiff diff) {
+        entries = compact;
+        final CatalogDiff published = diff.withEntries(compact);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (Listener listener : listeners) {
+                    listener.onCatalogChanged(published);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,313 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.support.annotation.Nullable;
+
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherActivityInfoCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enumerates launchable activities through {@link LauncherAppsCompat} and turns them into
+ * sorted {@link AppEntry}s.
+ * Package stamps only describe the current user's packages. Activities of other profiles take
+ * their install time from LauncherApps and have no update stamp (0), so nothing derived from
+ * them is treated as up to date across loads.
+ */
+public class AppCatalogLoader {
+    private static final int CHUNK_SIZE = 32;
+    private static final int MIN_SLICE_SIZE = 8;
+    // Label loading is mostly binder and resource work, more threads than this only queue up
+    // in the package manager.
+    private static final int RESOLVER_THREADS =
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+
+    private static final ThreadPoolExecutor resolverPool = new ThreadPoolExecutor(
+            RESOLVER_THREADS, RESOLVER_THREADS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new BackgroundThreadFactory("catalog-resolver"));
+
+    // Profiles are enumerated on their own pool because each of them waits on resolverPool.
+    private static final ThreadPoolExecutor profilePool = new ThreadPoolExecutor(
+            RESOLVER_THREADS, RESOLVER_THREADS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new BackgroundThreadFactory("catalog-profile"));
+
+    static {
+        resolverPool.allowCoreThreadTimeOut(true);
+        profilePool.allowCoreThreadTimeOut(true);
+    }
+
+    interface ChunkListener {
+        void onChunk(List<AppEntry> sortedChunk);
+    }
+
+    static final Comparator<AppEntry> LABEL_COMPARATOR = new Comparator<AppEntry>() {
+        @Override
+        public int compare(AppEntry entry, AppEntry t1) {
+            final int result = entry.getCollationKey().compareTo(t1.getCollationKey());
+            return result != 0 ? result : entry.getKey().compareTo(t1.getKey());
+        }
+    };
+
+    private final Context context;
+    private final BadgedLabelCache badgedLabels;
+
+    public AppCatalogLoader(Context context) {
+        this.context = context.getApplicationContext();
+        badgedLabels = new BadgedLabelCache(this.context);
+    }
+
+    public List<AppEntry> load(UserHandleCompat user) {
+        return load(user, getPackageStamps(), Collections.<String, String>emptyMap());
+    }
+
+    private List<AppEntry> load(UserHandleCompat user, PackageStamps stamps,
+                                Map<String, String> knownLabels) {
+        final List<LauncherActivityInfoCompat> infos =
+                LauncherAppsCompat.getInstance(context).getActivityList(null, user);
+        final List<AppEntry> entries = toEntries(infos, user, stamps, knownLabels);
+        Collections.sort(entries, LABEL_COMPARATOR);
+        return entries;
+    }
+
+    /**
+     * Loads the activities of every profile concurrently and merges them into one sorted list,
+     * so the total time is about that of the largest profile.
+     */
+    public List<AppEntry> loadAll() {
+        return loadAll(null);
+    }
+
+    /**
+     * Same as {@link #loadAll()}, but labels of activities whose package has not been updated
+     * since {@code previous} was loaded are taken from it instead of being loaded again.
+     * {@code previous} must have been loaded in the current locale.
+     */
+    List<AppEntry> loadAll(@Nullable CompactCatalog previous) {
+        final PackageStamps stamps = getPackageStamps();
+        final Map<String, String> knownLabels = previous == null
+                ? Collections.<String, String>emptyMap() : previous.getUnchangedLabels(stamps);
+        final List<Future<List<AppEntry>>> futures = new ArrayList<>();
+        for (UserHandleCompat user : UserManagerCompat.getInstance(context).getUserProfiles()) {
+            futures.add(loadAsync(user, stamps, knownLabels));
+        }
+        List<AppEntry> merged = new ArrayList<>(0);
+        for (Future<List<AppEntry>> future : futures) {
+            merged = merge(merged, getResult(future));
+        }
+        return merged;
+    }
+
+    /**
+     * Starts loading the activities of every profile except the current one in the background.
+     */
+    List<Future<List<AppEntry>>> loadOtherProfilesAsync(PackageStamps stamps) {
+        final UserHandleCompat myUser = UserHandleCompat.myUserHandle();
+        final List<Future<List<AppEntry>>> futures = new ArrayList<>();
+        for (UserHandleCompat user : UserManagerCompat.getInstance(context).getUserProfiles()) {
+            if (user.equals(myUser)) {
+                continue;
+            }
+            futures.add(loadAsync(user, stamps, Collections.<String, String>emptyMap()));
+        }
+        return futures;
+    }
+
+    private Future<List<AppEntry>> loadAsync(final UserHandleCompat user,
+                                             final PackageStamps stamps,
+                                             final Map<String, String> knownLabels) {
+        return profilePool.submit(new Callable<List<AppEntry>>() {
+            @Override
+            public List<AppEntry> call() throws Exception {
+                return load(user, stamps, knownLabels);
+            }
+        });
+    }
+
+    /**
+     * Waits for a load started by this loader and rethrows its failure unchecked.
+     */
+    static List<AppEntry> getResult(Future<List<AppEntry>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Merges two lists sorted by {@link #LABEL_COMPARATOR}.
+     */
+    static List<AppEntry> merge(List<AppEntry> a, List<AppEntry> b) {
+        final List<AppEntry> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            if (LABEL_COMPARATOR.compare(a.get(i), b.get(j)) <= 0) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        merged.addAll(a.subList(i, a.size()));
+        merged.addAll(b.subList(j, b.size()));
+        return merged;
+    }
+
+    /**
+     * Streams the catalog in sorted chunks instead of returning it at once. Activities of the
+     * likely packages come first so they can be shown before the labels of everything else
+     * are resolved; each chunk is sorted on its own and has to be merged by the caller.
+     */
+    void loadChunked(UserHandleCompat user, PackageStamps stamps, Set<String> likelyPackages,
+                     ChunkListener listener) {
+        final List<LauncherActivityInfoCompat> infos =
+                LauncherAppsCompat.getInstance(context).getActivityList(null, user);
+        final List<LauncherActivityInfoCompat> likely = new ArrayList<>();
+        final List<LauncherActivityInfoCompat> rest = new ArrayList<>(infos.size());
+        for (LauncherActivityInfoCompat info : infos) {
+            if (likelyPackages.contains(info.getComponentName().getPackageName())) {
+                likely.add(info);
+            } else {
+                rest.add(info);
+            }
+        }
+        if (!likely.isEmpty()) {
+            emitChunk(likely, user, stamps, listener);
+        }
+        for (int i = 0; i < rest.size(); i += CHUNK_SIZE) {
+            emitChunk(rest.subList(i, Math.min(rest.size(), i + CHUNK_SIZE)), user,
+                    stamps, listener);
+        }
+    }
+
+    private void emitChunk(List<LauncherActivityInfoCompat> infos, UserHandleCompat user,
+                           PackageStamps stamps, ChunkListener listener) {
+        final List<AppEntry> chunk = toEntries(infos, user, stamps, Collections.<String, String>emptyMap());
+        Collections.sort(chunk, LABEL_COMPARATOR);
+        listener.onChunk(chunk);
+    }
+
+    /**
+     * Queries only the activities of the given package. The result is not sorted.
+     */
+    List<AppEntry> loadPackage(String packageName, UserHandleCompat user) {
+        final List<LauncherActivityInfoCompat> infos =
+                LauncherAppsCompat.getInstance(context).getActivityList(packageName, user);
+        if (infos.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        final PackageStamps.Builder stamps = new PackageStamps.Builder(1);
+        if (user.equals(UserHandleCompat.myUserHandle())) {
+            try {
+                final PackageInfo packageInfo = context.getPackageManager().getPackageInfo(packageName, 0);
+                stamps.put(packageName, packageInfo.firstInstallTime, packageInfo.lastUpdateTime);
+            } catch (PackageManager.NameNotFoundException e) {
+                // Removed in the meantime, keep the stamps unknown.
+            }
+        }
+        return toEntries(infos, user, stamps.build(), Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Resolves labels and sort keys of the given activities. Large lists are split into
+     * contiguous slices that are resolved on the shared resolver pool and concatenated in
+     * slice order, so the result is the same as resolving them one by one.
+     */
+    private List<AppEntry> toEntries(final List<LauncherActivityInfoCompat> infos,
+                                     final UserHandleCompat user,
+                                     final PackageStamps stamps,
+                                     final Map<String, String> knownLabels) {
+        final long userSerial = UserManagerCompat.getInstance(context).getSerialNumberForUser(user);
+        final int sliceCount = Math.min(RESOLVER_THREADS,
+                (infos.size() + MIN_SLICE_SIZE - 1) / MIN_SLICE_SIZE);
+        if (sliceCount <= 1) {
+            return resolveSlice(infos, user, userSerial, stamps, knownLabels);
+        }
+        final int sliceSize = (infos.size() + sliceCount - 1) / sliceCount;
+        final List<Future<List<AppEntry>>> futures = new ArrayList<>(sliceCount);
+        for (int from = 0; from < infos.size(); from += sliceSize) {
+            final List<LauncherActivityInfoCompat> slice =
+                    infos.subList(from, Math.min(infos.size(), from + sliceSize));
+            futures.add(resolverPool.submit(new Callable<List<AppEntry>>() {
+                @Override
+                public List<AppEntry> call() throws Exception {
+                    return resolveSlice(slice, user, userSerial, stamps, knownLabels);
+                }
+            }));
+        }
+        final List<AppEntry> entries = new ArrayList<>(infos.size());
+        try {
+            for (Future<List<AppEntry>> future : futures) {
+                entries.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<List<AppEntry>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return entries;
+    }
+
+    private List<AppEntry> resolveSlice(List<LauncherActivityInfoCompat> infos,
+                                        UserHandleCompat user, long userSerial,
+                                        PackageStamps stamps, Map<String, String> knownLabels) {
+        final List<AppEntry> entries = new ArrayList<>(infos.size());
+        // The package manager only knows the current user's copy of a package.
+        final boolean otherProfile = !user.equals(UserHandleCompat.myUserHandle());
+        for (LauncherActivityInfoCompat info : infos) {
+            final ComponentName componentName = info.getComponentName();
+            final String packageName = componentName.getPackageName();
+            String label = knownLabels.isEmpty()
+                    ? null : knownLabels.get(AppEntry.makeKey(componentName, userSerial));
+            if (label == null) {
+                label = badgedLabels.getLabel(info.getLabel(), user, userSerial);
+            }
+            if (otherProfile) {
+                entries.add(new AppEntry(componentName, user, userSerial, label,
+                        info.getFirstInstallTime(), 0, info));
+            } else {
+                entries.add(new AppEntry(componentName, user, userSerial, label,
+                        stamps.getFirstInstallTime(packageName), stamps.getLastUpdateTime(packageName), info));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the install and update stamps of the current user's packages in a single
+     * PackageManager call instead of one getPackageInfo per entry.
+     */
+    PackageStamps getPackageStamps() {
+        final List<PackageInfo> packages = context.getPackageManager().getInstalledPackages(0);
+        final PackageStamps.Builder stamps = new PackageStamps.Builder(packages.size());
+        for (PackageInfo packageInfo : packages) {
+            stamps.put(packageInfo.packageName, packageInfo.firstInstallTime, packageInfo.lastUpdateTime);
+        }
+        return stamps.build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Versioned binary snapshot of the app catalog so the picker can be shown
+ * without querying the PackageManager first.
+ */
+public class AppCatalogSnapshot {
+    private static final String TAG = "AppCatalogSnapshot";
+    private static final String FILE_NAME = "app_catalog.bin";
+    private static final int MAGIC = 0x4d57414c; // "MWAL"
+    private static final int VERSION = 2;
+
+    private AppCatalogSnapshot() {
+    }
+
+    /**
+     * Reads the last written snapshot, or returns null if there is none or it can't be used.
+     */
+    @Nullable
+    public static List<AppEntry> read(Context context) {
+        final AtomicFile file = getFile(context);
+        final UserManagerCompat userManager = UserManagerCompat.getInstance(context);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            if (!in.readUTF().equals(Locale.getDefault().toString())) {
+                // Labels are localized, a full load is about as fast as fixing them up.
+                return null;
+            }
+            final int count = in.readInt();
+            final List<AppEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final String packageName = in.readUTF();
+                final String className = in.readUTF();
+                final String label = in.readUTF();
+                final long userSerial = in.readLong();
+                final long firstInstallTime = in.readLong();
+                final long lastUpdateTime = in.readLong();
+                final UserHandleCompat user = userManager.getUserForSerialNumber(userSerial);
+                if (user == null) {
+                    // The profile has been removed since the snapshot was written.
+                    continue;
+                }
+                entries.add(new AppEntry(new ComponentName(packageName, className), user,
+                        userSerial, label, firstInstallTime, lastUpdateTime, null));
+            }
+            return entries;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read snapshot", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    public static void write(Context context, List<AppEntry> entries) {
+        final AtomicFile file = getFile(context);
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(Locale.getDefault().toString());
+            out.writeInt(entries.size());
+            for (AppEntry entry : entries) {
+                out.writeUTF(entry.getComponentName().getPackageName());
+                out.writeUTF(entry.getComponentName().getClassName());
+                out.writeUTF(entry.getLabel());
+                out.writeLong(entry.getUserSerial());
+                out.writeLong(entry.getFirstInstallTime());
+                out.writeLong(entry.getLastUpdateTime());
+            }
+            out.flush();
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write snapshot", e);
+            if (fos != null) {
+                file.failWrite(fos);
+            }
+        }
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getCacheDir(), FILE_NAME));
+    }
+
+    private static void closeQuietly(DataInputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherActivityInfoCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+
+import java.text.CollationKey;
+
+/**
+ * One launchable activity in the app catalog.
+ * Entries read back from a snapshot or viewed through a {@link CompactCatalog} have no
+ * {@link LauncherActivityInfoCompat} attached; it is resolved lazily the first time the icon
+ * is needed. The key and sort key are also derived on first use, so a view that is only
+ * bound to a row stays cheap.
+ */
+public class AppEntry {
+    private final ComponentName componentName;
+    private final UserHandleCompat user;
+    private final long userSerial;
+    private final String label;
+    private final long firstInstallTime;
+    private final long lastUpdateTime;
+    private String key;
+    private volatile CollationKey collationKey;
+    private volatile LauncherActivityInfoCompat info;
+
+    AppEntry(ComponentName componentName, UserHandleCompat user, long userSerial, String label,
+             long firstInstallTime, long lastUpdateTime, @Nullable LauncherActivityInfoCompat info) {
+        this.componentName = componentName;
+        this.user = user;
+        this.userSerial = userSerial;
+        this.label = label;
+        this.firstInstallTime = firstInstallTime;
+        this.lastUpdateTime = lastUpdateTime;
+        this.info = info;
+    }
+
+    static String makeKey(ComponentName componentName, long userSerial) {
+        return componentName.flattenToShortString() + "#" + userSerial;
+    }
+
+    /**
+     * Identifies the activity and profile of this entry independent of its label or icon.
+     */
+    public String getKey() {
+        // Racing threads compute equal strings, publishing either one is fine.
+        String result = key;
+        if (result == null) {
+            result = makeKey(componentName, userSerial);
+            key = result;
+        }
+        return result;
+    }
+
+    public ComponentName getComponentName() {
+        return componentName;
+    }
+
+    public UserHandleCompat getUser() {
+        return user;
+    }
+
+    public long getUserSerial() {
+        return userSerial;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    CollationKey getCollationKey() {
+        // Racing threads compute equal keys, publishing either one is fine.
+        CollationKey result = collationKey;
+        if (result == null) {
+            result = LabelCollator.getCollationKey(label);
+            collationKey = result;
+        }
+        return result;
+    }
+
+    /**
+     * When the package was first installed, 0 if unknown. Taken from the bulk query of the
+     * load, never from a per-entry PackageManager call.
+     */
+    public long getFirstInstallTime() {
+        return firstInstallTime;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    @Nullable
+    public LauncherActivityInfoCompat getInfo(Context context) {
+        LauncherActivityInfoCompat resolved = info;
+        if (resolved == null) {
+            final Intent intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_LAUNCHER);
+            intent.setComponent(componentName);
+            resolved = LauncherAppsCompat.getInstance(context).resolveActivity(intent, user);
+            info = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Returns the icon, badged with the profile for activities of other profiles.
+     */
+    @Nullable
+    public Drawable getIcon(Context context, int density) {
+        final LauncherActivityInfoCompat resolved = getInfo(context);
+        if (resolved == null) {
+            return null;
+        }
+        return user.equals(UserHandleCompat.myUserHandle())
+                ? resolved.getIcon(density) : resolved.getBadgedIcon(density);
+    }
+
+    /**
+     * Returns true if both entries would be shown identically in the picker.
+     */
+    public boolean isSameAs(AppEntry other) {
+        return componentName.equals(other.componentName)
+                && userSerial == other.userSerial
+                && firstInstallTime == other.firstInstallTime
+                && lastUpdateTime == other.lastUpdateTime
+                && label.equals(other.label);
+    }
+}
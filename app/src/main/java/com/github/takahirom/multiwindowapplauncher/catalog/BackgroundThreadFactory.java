@@ -0,0 +1,30 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.os.Process;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates catalog worker threads at background priority, so warming the catalog never
+ * competes with the UI thread or with a launch for CPU time.
+ */
+final class BackgroundThreadFactory implements ThreadFactory {
+    private final String name;
+    private final AtomicInteger count = new AtomicInteger();
+
+    BackgroundThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        return new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }
+        }, name + "-" + count.incrementAndGet());
+    }
+}
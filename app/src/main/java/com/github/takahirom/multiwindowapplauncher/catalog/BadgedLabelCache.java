@@ -0,0 +1,43 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.Context;
+
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Labels as shown for their profile, e.g. "Work Chrome". Badging is a PackageManager call per
+ * label, so results are kept per profile and label until the locale changes. Labels of the
+ * current user are never badged and skip the call entirely.
+ */
+final class BadgedLabelCache {
+    private final UserManagerCompat userManager;
+    private final ConcurrentHashMap<String, String> labels = new ConcurrentHashMap<>();
+    private volatile Locale locale;
+
+    BadgedLabelCache(Context context) {
+        userManager = UserManagerCompat.getInstance(context);
+    }
+
+    String getLabel(CharSequence label, UserHandleCompat user, long userSerial) {
+        final String plain = label.toString();
+        if (user.equals(UserHandleCompat.myUserHandle())) {
+            return plain;
+        }
+        final Locale current = Locale.getDefault();
+        if (!current.equals(locale)) {
+            labels.clear();
+            locale = current;
+        }
+        final String key = userSerial + "/" + plain;
+        String badged = labels.get(key);
+        if (badged == null) {
+            badged = userManager.getBadgedLabelForUser(plain, user).toString();
+            labels.put(key, badged);
+        }
+        return badged;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change between two versions of the app catalog.
+ */
+public class CatalogDiff {
+    private final List<AppEntry> entries;
+    private final List<AppEntry> added;
+    private final List<AppEntry> removed;
+    private final List<AppEntry> changed;
+
+    CatalogDiff(List<AppEntry> entries, List<AppEntry> added, List<AppEntry> removed,
+                List<AppEntry> changed) {
+        this.entries = entries;
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /**
+     * Computes the diff between the entries before and after a change. Only the entries passed in
+     * are compared, so callers can diff a single package instead of the whole catalog.
+     */
+    static CatalogDiff compute(List<AppEntry> entries, List<AppEntry> before, List<AppEntry> after) {
+        final Map<String, AppEntry> remaining = new HashMap<>(before.size());
+        for (AppEntry entry : before) {
+            remaining.put(entry.getKey(), entry);
+        }
+        final List<AppEntry> added = new ArrayList<>();
+        final List<AppEntry> changed = new ArrayList<>();
+        for (AppEntry entry : after) {
+            final AppEntry old = remaining.remove(entry.getKey());
+            if (old == null) {
+                added.add(entry);
+            } else if (!old.isSameAs(entry)) {
+                changed.add(entry);
+            }
+        }
+        return new CatalogDiff(entries, added, new ArrayList<>(remaining.values()), changed);
+    }
+
+    /**
+     * Same change with the whole catalog in another representation, e.g. packed.
+     */
+    CatalogDiff withEntries(List<AppEntry> sameEntries) {
+        return new CatalogDiff(sameEntries, added, removed, changed);
+    }
+
+    /**
+     * The whole catalog after this change, sorted for display.
+     */
+    public List<AppEntry> getEntries() {
+        return entries;
+    }
+
+    public List<AppEntry> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    public List<AppEntry> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    public List<AppEntry> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
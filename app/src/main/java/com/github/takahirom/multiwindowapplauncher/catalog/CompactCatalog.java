@@ -0,0 +1,387 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.support.annotation.Nullable;
+
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, memory-lean form of the catalog that stays resident between picks.
+ * Rows are stored in label order as parallel primitive arrays of indices into a shared
+ * {@link StringPool} for package names, class names and labels, and into a small table of
+ * profiles. No {@link AppEntry} is retained: {@link #get(int)} creates a short-lived view of
+ * the row, and its activity info is only resolved if somebody asks for it.
+ * The other orders the picker offers are kept as precomputed permutations of the rows, so
+ * switching between them never sorts, and package changes insert into them instead of
+ * sorting again.
+ */
+public final class CompactCatalog extends AbstractList<AppEntry> implements RandomAccess {
+    /** Orders that only depend on the rows themselves and are kept as permutations. */
+    private static final SortOrder[] PERMUTED_ORDERS =
+            {SortOrder.PACKAGE, SortOrder.NEWEST_FIRST, SortOrder.PROFILE};
+
+    private final StringPool strings;
+    private final int[] packageIds;
+    private final int[] classIds;
+    private final int[] labelIds;
+    private final int[] profileIds;
+    private final long[] firstInstallTimes;
+    private final long[] lastUpdateTimes;
+    private final UserHandleCompat[] users;
+    private final long[] userSerials;
+    /** Row indices in each of {@link #PERMUTED_ORDERS}, by position in that array. */
+    private final int[][] permutations;
+
+    private CompactCatalog(StringPool strings, int[] packageIds, int[] classIds, int[] labelIds,
+                           int[] profileIds, long[] firstInstallTimes, long[] lastUpdateTimes,
+                           UserHandleCompat[] users, long[] userSerials,
+                           @Nullable int[][] permutations) {
+        this.strings = strings;
+        this.packageIds = packageIds;
+        this.classIds = classIds;
+        this.labelIds = labelIds;
+        this.profileIds = profileIds;
+        this.firstInstallTimes = firstInstallTimes;
+        this.lastUpdateTimes = lastUpdateTimes;
+        this.users = users;
+        this.userSerials = userSerials;
+        if (permutations != null) {
+            this.permutations = permutations;
+        } else {
+            this.permutations = new int[PERMUTED_ORDERS.length][];
+            for (int i = 0; i < PERMUTED_ORDERS.length; i++) {
+                this.permutations[i] = sortRows(PERMUTED_ORDERS[i]);
+            }
+        }
+    }
+
+    /**
+     * Packs the entries, which must be in label order. Returns the argument if it is already
+     * packed.
+     */
+    public static CompactCatalog of(List<AppEntry> entries) {
+        if (entries instanceof CompactCatalog) {
+            return (CompactCatalog) entries;
+        }
+        final int size = entries.size();
+        final StringPool.Builder builder = new StringPool.Builder();
+        for (AppEntry entry : entries) {
+            builder.add(entry.getComponentName().getPackageName())
+                    .add(entry.getComponentName().getClassName())
+                    .add(entry.getLabel());
+        }
+        final StringPool strings = builder.build();
+        final Profiles profiles = new Profiles(new UserHandleCompat[0], new long[0]);
+        final int[] packageIds = new int[size];
+        final int[] classIds = new int[size];
+        final int[] labelIds = new int[size];
+        final int[] profileIds = new int[size];
+        final long[] firstInstallTimes = new long[size];
+        final long[] lastUpdateTimes = new long[size];
+        for (int i = 0; i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            packageIds[i] = strings.indexOf(entry.getComponentName().getPackageName());
+            classIds[i] = strings.indexOf(entry.getComponentName().getClassName());
+            labelIds[i] = strings.indexOf(entry.getLabel());
+            profileIds[i] = profiles.indexOf(entry);
+            firstInstallTimes[i] = entry.getFirstInstallTime();
+            lastUpdateTimes[i] = entry.getLastUpdateTime();
+        }
+        return new CompactCatalog(strings, packageIds, classIds, labelIds, profileIds,
+                firstInstallTimes, lastUpdateTimes, profiles.getUsers(), profiles.getSerials(), null);
+    }
+
+    @Override
+    public int size() {
+        return packageIds.length;
+    }
+
+    /**
+     * Returns a new view of the row. Views of the same row are equal by key, not identical.
+     */
+    @Override
+    public AppEntry get(int index) {
+        final int profile = profileIds[index];
+        return new AppEntry(new ComponentName(strings.get(packageIds[index]), strings.get(classIds[index])),
+                users[profile], userSerials[profile], strings.get(labelIds[index]),
+                firstInstallTimes[index], lastUpdateTimes[index], null);
+    }
+
+    /**
+     * Returns the row of the activity in the given profile, or -1. Scans the arrays without
+     * creating any view.
+     */
+    public int indexOf(ComponentName componentName, long userSerial) {
+        final int packageId = strings.indexOf(componentName.getPackageName());
+        final int classId = strings.indexOf(componentName.getClassName());
+        if (packageId < 0 || classId < 0) {
+            return -1;
+        }
+        for (int i = 0; i < packageIds.length; i++) {
+            if (packageIds[i] == packageId && classIds[i] == classId
+                    && userSerials[profileIds[i]] == userSerial) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks the rows of the package in the given profile.
+     */
+    void findRows(String packageName, long userSerial, BitSet rows) {
+        final int packageId = strings.indexOf(packageName);
+        if (packageId < 0) {
+            return;
+        }
+        for (int i = 0; i < packageIds.length; i++) {
+            if (packageIds[i] == packageId && userSerials[profileIds[i]] == userSerial) {
+                rows.set(i);
+            }
+        }
+    }
+
+    public String getLabel(int index) {
+        return strings.get(labelIds[index]);
+    }
+
+    public String getPackageName(int index) {
+        return strings.get(packageIds[index]);
+    }
+
+    /**
+     * Returns true if the package of the row has been updated since the row was loaded,
+     * according to stamps from a newer bulk query.
+     */
+    boolean isStale(int index, PackageStamps stamps) {
+        return stamps.isStale(strings.get(packageIds[index]), lastUpdateTimes[index]);
+    }
+
+    /**
+     * Labels by entry key of all rows that are not stale, to be reused by the next load.
+     */
+    Map<String, String> getUnchangedLabels(PackageStamps stamps) {
+        final Map<String, String> labels = new HashMap<>();
+        for (int i = 0; i < packageIds.length; i++) {
+            if (!isStale(i, stamps)) {
+                final ComponentName componentName =
+                        new ComponentName(strings.get(packageIds[i]), strings.get(classIds[i]));
+                labels.put(AppEntry.makeKey(componentName, userSerials[profileIds[i]]),
+                        strings.get(labelIds[i]));
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * The same rows in the given order, as a view over a precomputed permutation. Orders
+     * that depend on more than the rows, i.e. {@link SortOrder#LAUNCH_FREQUENCY}, return the
+     * label order.
+     */
+    public List<AppEntry> inOrder(SortOrder order) {
+        for (int i = 0; i < PERMUTED_ORDERS.length; i++) {
+            if (PERMUTED_ORDERS[i] == order) {
+                return new PermutedView(permutations[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns a catalog without the given rows and with the added entries, which have to be
+     * sorted by {@link AppCatalogLoader#LABEL_COMPARATOR}. Rows are merged into label order
+     * and the permutations are updated by insertion through {@link RowMerge}, at O(n) per
+     * added entry instead of a full sort. Strings of removed rows may stay in the pool until
+     * the next full load.
+     */
+    CompactCatalog withChanges(BitSet removedRows, List<AppEntry> added) {
+        final int oldSize = size();
+
+        // Where each added entry goes among the old rows, in label order.
+        final int[] insertAt = new int[added.size()];
+        for (int i = 0; i < added.size(); i++) {
+            int low = i > 0 ? insertAt[i - 1] : 0;
+            int high = oldSize;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (AppCatalogLoader.LABEL_COMPARATOR.compare(get(mid), added.get(i)) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            insertAt[i] = low;
+        }
+
+        StringPool newStrings = strings;
+        for (AppEntry entry : added) {
+            if (strings.indexOf(entry.getComponentName().getPackageName()) < 0
+                    || strings.indexOf(entry.getComponentName().getClassName()) < 0
+                    || strings.indexOf(entry.getLabel()) < 0) {
+                newStrings = null;
+                break;
+            }
+        }
+        final int[] stringIds;
+        if (newStrings == null) {
+            final StringPool.Builder builder = new StringPool.Builder();
+            for (int i = 0; i < strings.size(); i++) {
+                builder.add(strings.get(i));
+            }
+            for (AppEntry entry : added) {
+                builder.add(entry.getComponentName().getPackageName())
+                        .add(entry.getComponentName().getClassName())
+                        .add(entry.getLabel());
+            }
+            newStrings = builder.build();
+            stringIds = strings.indicesIn(newStrings);
+        } else {
+            stringIds = null;
+        }
+
+        final Profiles profiles = new Profiles(users, userSerials);
+        final int[] addedPackageIds = new int[added.size()];
+        final int[] addedClassIds = new int[added.size()];
+        final int[] addedLabelIds = new int[added.size()];
+        final int[] addedProfileIds = new int[added.size()];
+        final long[] addedFirstInstallTimes = new long[added.size()];
+        final long[] addedLastUpdateTimes = new long[added.size()];
+        for (int i = 0; i < added.size(); i++) {
+            final AppEntry entry = added.get(i);
+            addedPackageIds[i] = newStrings.indexOf(entry.getComponentName().getPackageName());
+            addedClassIds[i] = newStrings.indexOf(entry.getComponentName().getClassName());
+            addedLabelIds[i] = newStrings.indexOf(entry.getLabel());
+            addedProfileIds[i] = profiles.indexOf(entry);
+            addedFirstInstallTimes[i] = entry.getFirstInstallTime();
+            addedLastUpdateTimes[i] = entry.getLastUpdateTime();
+        }
+
+        final RowMerge merge = new RowMerge(size(), removedRows, insertAt);
+        final CompactCatalog catalog = new CompactCatalog(newStrings,
+                merge.merge(stringIds == null ? packageIds : RowMerge.remap(packageIds, stringIds), addedPackageIds),
+                merge.merge(stringIds == null ? classIds : RowMerge.remap(classIds, stringIds), addedClassIds),
+                merge.merge(stringIds == null ? labelIds : RowMerge.remap(labelIds, stringIds), addedLabelIds),
+                merge.merge(profileIds, addedProfileIds),
+                merge.merge(firstInstallTimes, addedFirstInstallTimes),
+                merge.merge(lastUpdateTimes, addedLastUpdateTimes),
+                profiles.getUsers(), profiles.getSerials(), new int[PERMUTED_ORDERS.length][]);
+        for (int i = 0; i < PERMUTED_ORDERS.length; i++) {
+            final SortOrder order = PERMUTED_ORDERS[i];
+            catalog.permutations[i] = merge.mergePermutation(permutations[i], new RowMerge.RowOrder() {
+                @Override
+                public int compare(int a, int b) {
+                    return catalog.compareRows(order, a, b);
+                }
+            });
+        }
+        return catalog;
+    }
+
+    private int[] sortRows(final SortOrder order) {
+        final Integer[] rows = new Integer[size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        Arrays.sort(rows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return compareRows(order, a, b);
+            }
+        });
+        final int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            result[i] = rows[i];
+        }
+        return result;
+    }
+
+    /**
+     * Compares two rows in the given order. Ties fall back to the label order, which is the
+     * row order itself.
+     */
+    private int compareRows(SortOrder order, int a, int b) {
+        final int result;
+        switch (order) {
+            case PACKAGE:
+                // The pool is sorted, so ids compare like the strings.
+                result = Integer.compare(packageIds[a], packageIds[b]);
+                break;
+            case NEWEST_FIRST:
+                result = Long.compare(firstInstallTimes[b], firstInstallTimes[a]);
+                break;
+            case PROFILE:
+                result = Long.compare(userSerials[profileIds[a]], userSerials[profileIds[b]]);
+                break;
+            default:
+                result = 0;
+                break;
+        }
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    private class PermutedView extends AbstractList<AppEntry> implements RandomAccess {
+        private final int[] rows;
+
+        PermutedView(int[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public AppEntry get(int index) {
+            return CompactCatalog.this.get(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+
+    /**
+     * The distinct profiles of a catalog being built. A device has only a few of them.
+     */
+    private static class Profiles {
+        private final List<UserHandleCompat> users;
+        private final List<Long> serials;
+
+        Profiles(UserHandleCompat[] users, long[] serials) {
+            this.users = new ArrayList<>(Arrays.asList(users));
+            this.serials = new ArrayList<>(serials.length);
+            for (long serial : serials) {
+                this.serials.add(serial);
+            }
+        }
+
+        int indexOf(AppEntry entry) {
+            int index = serials.indexOf(entry.getUserSerial());
+            if (index < 0) {
+                index = serials.size();
+                serials.add(entry.getUserSerial());
+                users.add(entry.getUser());
+            }
+            return index;
+        }
+
+        UserHandleCompat[] getUsers() {
+            return users.toArray(new UserHandleCompat[users.size()]);
+        }
+
+        long[] getSerials() {
+            final long[] result = new long[serials.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = serials.get(i);
+            }
+            return result;
+        }
+    }
+}
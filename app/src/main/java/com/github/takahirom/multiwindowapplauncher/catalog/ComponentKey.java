@@ -0,0 +1,60 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.support.annotation.Nullable;
+
+/**
+ * An activity in a profile, identified by its user serial number. Used to refer to activities
+ * that may no longer be in the catalog, e.g. the targets of shortcuts.
+ */
+public final class ComponentKey {
+    public final ComponentName componentName;
+    public final long userSerial;
+
+    public ComponentKey(ComponentName componentName, long userSerial) {
+        this.componentName = componentName;
+        this.userSerial = userSerial;
+    }
+
+    /**
+     * Parses a key in the format of {@link AppEntry#getKey()}, or returns null if it is malformed.
+     */
+    @Nullable
+    public static ComponentKey parse(String key) {
+        final int separator = key.lastIndexOf('#');
+        if (separator < 0) {
+            return null;
+        }
+        final ComponentName componentName = ComponentName.unflattenFromString(key.substring(0, separator));
+        if (componentName == null) {
+            return null;
+        }
+        try {
+            return new ComponentKey(componentName, Long.parseLong(key.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ComponentKey)) {
+            return false;
+        }
+        final ComponentKey other = (ComponentKey) o;
+        return userSerial == other.userSerial && componentName.equals(other.componentName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * componentName.hashCode() + (int) (userSerial ^ (userSerial >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return AppEntry.makeKey(componentName, userSerial);
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.WorkerThread;
+
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherActivityInfoCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserManagerCompat;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks whether activities are still installed, enabled and launchable in their profile.
+ * Each package is looked up with one activity list query however many of its activities are
+ * checked, instead of a package and an activity query per component. Results are kept until
+ * the next event of that package, so validating the same targets again costs no binder call.
+ * Adding or removing a profile fires no package event, so it drops every result.
+ */
+public final class ComponentValidator {
+    private static ComponentValidator instance;
+    private static final Object instanceLock = new Object();
+
+    public static ComponentValidator getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new ComponentValidator(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final LauncherAppsCompat launcherApps;
+    private final UserManagerCompat userManager;
+    private final EnabledComponentTable table = new EnabledComponentTable();
+
+    private ComponentValidator(final Context context) {
+        launcherApps = LauncherAppsCompat.getInstance(context);
+        userManager = UserManagerCompat.getInstance(context);
+        // Invalidate on every raw event rather than the catalog's coalesced batches, so a
+        // disabled component is never reported as enabled.
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                launcherApps.addOnAppsChangedCallback(new Invalidator());
+            }
+        });
+        final IntentFilter profileFilter = new IntentFilter();
+        profileFilter.addAction(LauncherAppsCompat.ACTION_MANAGED_PROFILE_ADDED);
+        profileFilter.addAction(LauncherAppsCompat.ACTION_MANAGED_PROFILE_REMOVED);
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                table.invalidateAll();
+            }
+        }, profileFilter);
+    }
+
+    /**
+     * Returns the given activities that can be launched, in iteration order. Activities of
+     * removed profiles, uninstalled or disabled packages and disabled activities are left out.
+     */
+    @WorkerThread
+    public Set<ComponentKey> getEnabled(Collection<ComponentKey> keys) {
+        final Set<ComponentKey> enabled = new LinkedHashSet<>();
+        for (ComponentKey key : keys) {
+            final Set<String> classNames = getEnabledClassNames(key.componentName.getPackageName(), key.userSerial);
+            if (classNames.contains(key.componentName.getClassName())) {
+                enabled.add(key);
+            }
+        }
+        return enabled;
+    }
+
+    private Set<String> getEnabledClassNames(String packageName, long userSerial) {
+        final Set<String> cached = table.get(packageName, userSerial);
+        if (cached != null) {
+            return cached;
+        }
+        final int generation = table.getGeneration();
+        final Set<String> classNames = new HashSet<>();
+        final UserHandleCompat user = userManager.getUserForSerialNumber(userSerial);
+        if (user != null) {
+            // Only enabled activities of enabled packages are listed.
+            final List<LauncherActivityInfoCompat> activities;
+            try {
+                activities = launcherApps.getActivityList(packageName, user);
+            } catch (SecurityException e) {
+                // The user cache is refreshed by the catalog after a profile was removed, until
+                // then the removed user may still be looked up.
+                return classNames;
+            }
+            for (LauncherActivityInfoCompat info : activities) {
+                classNames.add(info.getComponentName().getClassName());
+            }
+        }
+        table.put(packageName, userSerial, classNames, generation);
+        return classNames;
+    }
+
+    private void invalidate(String[] packageNames, UserHandleCompat user) {
+        if (packageNames == null) {
+            table.invalidateAll();
+            return;
+        }
+        final long userSerial = userManager.getSerialNumberForUser(user);
+        for (String packageName : packageNames) {
+            table.invalidate(packageName, userSerial);
+        }
+    }
+
+    private class Invalidator implements LauncherAppsCompat.OnAppsChangedCallbackCompat {
+        @Override
+        public void onPackageRemoved(String packageName, UserHandleCompat user) {
+            invalidate(new String[]{packageName}, user);
+        }
+
+        @Override
+        public void onPackageAdded(String packageName, UserHandleCompat user) {
+            invalidate(new String[]{packageName}, user);
+        }
+
+        @Override
+        public void onPackageChanged(String packageName, UserHandleCompat user) {
+            invalidate(new String[]{packageName}, user);
+        }
+
+        @Override
+        public void onPackagesAvailable(String[] packageNames, UserHandleCompat user, boolean replacing) {
+            invalidate(packageNames, user);
+        }
+
+        @Override
+        public void onPackagesUnavailable(String[] packageNames, UserHandleCompat user, boolean replacing) {
+            invalidate(packageNames, user);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enabled launchable activities per package and profile, as class names. A package is queried
+ * once and its set answers every component of it until the package changes.
+ * Invalidations bump a generation, so a query that raced with a package event is not cached
+ * with the state from before the event. Thread safe.
+ */
+final class EnabledComponentTable {
+    private final Map<String, Set<String>> classNames = new HashMap<>();
+    private int generation;
+
+    private static String key(String packageName, long userSerial) {
+        return userSerial + "/" + packageName;
+    }
+
+    /**
+     * Returns the enabled activities of the package, or null if the package is not cached.
+     */
+    synchronized Set<String> get(String packageName, long userSerial) {
+        return classNames.get(key(packageName, userSerial));
+    }
+
+    /**
+     * The generation to pass to {@link #put} for a query that starts now.
+     */
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the result of a query started at the given generation, unless anything was
+     * invalidated since. Returns whether it was cached.
+     */
+    synchronized boolean put(String packageName, long userSerial, Set<String> enabledClassNames,
+                             int queryGeneration) {
+        if (queryGeneration != generation) {
+            return false;
+        }
+        classNames.put(key(packageName, userSerial), Collections.unmodifiableSet(enabledClassNames));
+        return true;
+    }
+
+    synchronized void invalidate(String packageName, long userSerial) {
+        generation++;
+        classNames.remove(key(packageName, userSerial));
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        classNames.clear();
+    }
+
+    synchronized int size() {
+        return classNames.size();
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Launch counts that fade with age. Each key keeps a single score that is halved every
+ * half-life and bumped by one per launch, so frequency and recency are both reflected
+ * without storing individual launches. Only the best scored keys are kept. Not thread safe.
+ */
+final class FrecencyTable {
+    private final long halfLifeMillis;
+    private final int maxEntries;
+    private final Map<String, Score> scores = new HashMap<>();
+
+    private static class Score {
+        double value;
+        long time;
+
+        Score(double value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    FrecencyTable(long halfLifeMillis, int maxEntries) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    void record(String key, long now) {
+        final Score score = scores.get(key);
+        if (score == null) {
+            if (scores.size() >= maxEntries) {
+                // Make room by dropping the worst key, the new one must get a chance to rise.
+                scores.remove(getTop(maxEntries, now).get(maxEntries - 1));
+            }
+            scores.put(key, new Score(1, now));
+        } else {
+            score.value = decay(score, now) + 1;
+            score.time = Math.max(score.time, now);
+        }
+    }
+
+    /**
+     * Returns the score of the key at the given time, 0 if it was never recorded.
+     */
+    double getScore(String key, long now) {
+        final Score score = scores.get(key);
+        return score == null ? 0 : decay(score, now);
+    }
+
+    /**
+     * Returns up to {@code count} keys, best score first.
+     */
+    List<String> getTop(int count, final long now) {
+        final List<String> keys = new ArrayList<>(scores.keySet());
+        Collections.sort(keys, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                final int byScore = Double.compare(getScore(b, now), getScore(a, now));
+                return byScore != 0 ? byScore : a.compareTo(b);
+            }
+        });
+        return keys.size() > count ? new ArrayList<>(keys.subList(0, count)) : keys;
+    }
+
+    int size() {
+        return scores.size();
+    }
+
+    private double decay(Score score, long now) {
+        final long age = now - score.time;
+        return age <= 0 ? score.value : score.value * Math.pow(0.5, (double) age / halfLifeMillis);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(scores.size());
+        for (Map.Entry<String, Score> entry : scores.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue().value);
+            out.writeLong(entry.getValue().time);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        scores.clear();
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            final String key = in.readUTF();
+            final double value = in.readDouble();
+            final long time = in.readLong();
+            scores.put(key, new Score(value, time));
+        }
+    }
+}
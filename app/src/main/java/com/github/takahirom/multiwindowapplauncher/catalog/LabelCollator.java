@@ -0,0 +1,37 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * Builds locale-aware sort keys for labels. {@link Collator} is not thread safe, so every
+ * thread keeps its own instance; comparing the resulting keys is cheap and lock free.
+ */
+final class LabelCollator {
+    private static final ThreadLocal<LabelCollator> collators = new ThreadLocal<LabelCollator>() {
+        @Override
+        protected LabelCollator initialValue() {
+            return new LabelCollator();
+        }
+    };
+
+    private Collator collator;
+    private Locale collatorLocale;
+
+    private LabelCollator() {
+    }
+
+    static CollationKey getCollationKey(String label) {
+        return collators.get().getKey(label);
+    }
+
+    private CollationKey getKey(String label) {
+        final Locale locale = Locale.getDefault();
+        if (collator == null || !locale.equals(collatorLocale)) {
+            collator = Collator.getInstance(locale);
+            collatorLocale = locale;
+        }
+        return collator.getCollationKey(label);
+    }
+}
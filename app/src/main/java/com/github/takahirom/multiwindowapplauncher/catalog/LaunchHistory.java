@@ -0,0 +1,188 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Persistent launch history of activities per profile, ranked by how often and how recently
+ * they were launched. The picker lists the top entries first and the catalog warms their
+ * icons as soon as it is loaded.
+ * The file is read on first use and written by a background thread outside the table lock.
+ * The latest ranking is published for the main thread, which never waits on the lock or the
+ * file.
+ */
+public final class LaunchHistory {
+    private static final String TAG = "LaunchHistory";
+    private static final String FILE_NAME = "launch_history.bin";
+    private static final int MAGIC = 0x4d574c48; // "MWLH"
+    private static final int VERSION = 1;
+    private static final long HALF_LIFE_MILLIS = 3L * 24 * 60 * 60 * 1000;
+    private static final int MAX_ENTRIES = 64;
+    /** Number of entries the picker shows ahead of the alphabetical list. */
+    public static final int TOP_COUNT = 8;
+
+    private static LaunchHistory instance;
+    private static final Object instanceLock = new Object();
+
+    public static LaunchHistory getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new LaunchHistory(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new BackgroundThreadFactory("launch-history"));
+    private final AtomicFile file;
+    private final FrecencyTable table = new FrecencyTable(HALF_LIFE_MILLIS, MAX_ENTRIES);
+    private boolean loaded;
+    private volatile List<String> ranking = Collections.emptyList();
+
+    private LaunchHistory(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Counts a launch of the activity in the given profile. The file is written in the
+     * background.
+     */
+    public void record(ComponentName componentName, long userSerial) {
+        final String key = AppEntry.makeKey(componentName, userSerial);
+        final long now = System.currentTimeMillis();
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                final byte[] data;
+                synchronized (table) {
+                    ensureLoaded();
+                    table.record(key, now);
+                    ranking = table.getTop(MAX_ENTRIES, now);
+                    data = serialize();
+                }
+                if (data != null) {
+                    write(data);
+                }
+            }
+        });
+    }
+
+    /**
+     * Entry keys (see {@link AppEntry#getKey()}) of the best ranked activities, best first.
+     * Reads the file on first use.
+     */
+    public List<String> getTopKeys(int count) {
+        synchronized (table) {
+            ensureLoaded();
+            return table.getTop(count, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Entry keys of every activity in the history, best first. Reads the file on first use.
+     */
+    public List<String> getRankedKeys() {
+        synchronized (table) {
+            ensureLoaded();
+            return ranking;
+        }
+    }
+
+    /**
+     * Same as {@link #getRankedKeys()} without blocking, so it can be called on the main
+     * thread. Empty until the history has been read, which the catalog does before it
+     * publishes its first entries.
+     */
+    public List<String> peekRankedKeys() {
+        return ranking;
+    }
+
+    /**
+     * Packages of the best ranked activities, best first. Malformed keys are skipped.
+     */
+    Set<String> getTopPackages(int count) {
+        final Set<String> packages = new LinkedHashSet<>();
+        for (String key : getTopKeys(count)) {
+            final ComponentKey componentKey = ComponentKey.parse(key);
+            if (componentKey != null) {
+                packages.add(componentKey.componentName.getPackageName());
+            }
+        }
+        return packages;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                table.readFrom(in);
+                ranking = table.getTop(MAX_ENTRIES, System.currentTimeMillis());
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing launched yet.
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read launch history", e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private byte[] serialize() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            table.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to serialize launch history", e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Called on the writer thread only, so writes happen in the order of the launches.
+     */
+    private void write(byte[] data) {
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            fos.write(data);
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write launch history", e);
+            if (fos != null) {
+                file.failWrite(fos);
+            }
+        }
+    }
+}
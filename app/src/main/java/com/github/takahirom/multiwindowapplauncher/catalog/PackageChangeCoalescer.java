@@ -0,0 +1,118 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.github.takahirom.multiwindowapplauncher.compat.LauncherAppsCompat;
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Turns bursts of package events, e.g. a store updating a dozen apps or an SD card being
+ * mounted, into one change set per profile. A batch is handed to the executor once no event
+ * arrived for {@link #QUIET_MILLIS}, or at the latest {@link #MAX_DELAY_MILLIS} after its first
+ * event so a steady stream still gets through.
+ */
+final class PackageChangeCoalescer implements LauncherAppsCompat.OnAppsChangedCallbackCompat {
+    static final long QUIET_MILLIS = 250;
+    static final long MAX_DELAY_MILLIS = 2000;
+
+    interface Callback {
+        /**
+         * Called on the executor with every change since the previous batch.
+         */
+        void onPackagesChanged(Map<UserHandleCompat, PackageChangeSet> changes);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Executor executor;
+    private final Callback callback;
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private Map<UserHandleCompat, PackageChangeSet> pending = new HashMap<>();
+    private long firstEventTime;
+
+    PackageChangeCoalescer(Executor executor, Callback callback) {
+        this.executor = executor;
+        this.callback = callback;
+    }
+
+    private synchronized PackageChangeSet changesOf(UserHandleCompat user) {
+        PackageChangeSet changes = pending.get(user);
+        if (changes == null) {
+            changes = new PackageChangeSet();
+            pending.put(user, changes);
+        }
+        return changes;
+    }
+
+    private synchronized void schedule() {
+        final long now = SystemClock.uptimeMillis();
+        if (firstEventTime == 0) {
+            firstEventTime = now;
+        }
+        handler.removeCallbacks(flush);
+        handler.postAtTime(flush, Math.min(now + QUIET_MILLIS, firstEventTime + MAX_DELAY_MILLIS));
+    }
+
+    private void flush() {
+        final Map<UserHandleCompat, PackageChangeSet> changes;
+        synchronized (this) {
+            changes = pending;
+            pending = new HashMap<>();
+            firstEventTime = 0;
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onPackagesChanged(changes);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void onPackageRemoved(String packageName, UserHandleCompat user) {
+        changesOf(user).remove(packageName);
+        schedule();
+    }
+
+    @Override
+    public synchronized void onPackageAdded(String packageName, UserHandleCompat user) {
+        changesOf(user).update(packageName);
+        schedule();
+    }
+
+    @Override
+    public synchronized void onPackageChanged(String packageName, UserHandleCompat user) {
+        changesOf(user).update(packageName);
+        schedule();
+    }
+
+    @Override
+    public synchronized void onPackagesAvailable(String[] packageNames, UserHandleCompat user, boolean replacing) {
+        if (packageNames != null) {
+            changesOf(user).update(packageNames);
+            schedule();
+        }
+    }
+
+    @Override
+    public synchronized void onPackagesUnavailable(String[] packageNames, UserHandleCompat user, boolean replacing) {
+        // A replaced package comes back available right away, keep its entries meanwhile.
+        if (packageNames != null && !replacing) {
+            changesOf(user).remove(packageNames);
+            schedule();
+        }
+    }
+}
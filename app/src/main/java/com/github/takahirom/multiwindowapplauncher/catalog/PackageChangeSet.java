@@ -0,0 +1,46 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Package events of one profile, collapsed to the last state of each package: a package is
+ * either to be re-queried or to be dropped from the catalog, never both. Not thread safe.
+ */
+final class PackageChangeSet {
+    private final Set<String> updated = new LinkedHashSet<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+
+    /**
+     * The packages were added, changed or became available.
+     */
+    void update(String... packageNames) {
+        for (String packageName : packageNames) {
+            removed.remove(packageName);
+            updated.add(packageName);
+        }
+    }
+
+    /**
+     * The packages were uninstalled or became unavailable.
+     */
+    void remove(String... packageNames) {
+        for (String packageName : packageNames) {
+            updated.remove(packageName);
+            removed.add(packageName);
+        }
+    }
+
+    Set<String> getUpdated() {
+        return Collections.unmodifiableSet(updated);
+    }
+
+    Set<String> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    boolean isEmpty() {
+        return updated.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Install and update times of packages, taken from one bulk PackageManager query per load.
+ * Lookups are a single hash probe, so every entry of a catalog can be checked for staleness
+ * without another binder call. Unknown packages report 0 for both times.
+ */
+final class PackageStamps {
+    private final Map<String, Integer> indices;
+    private final long[] firstInstallTimes;
+    private final long[] lastUpdateTimes;
+
+    private PackageStamps(Map<String, Integer> indices, long[] firstInstallTimes,
+                          long[] lastUpdateTimes) {
+        this.indices = indices;
+        this.firstInstallTimes = firstInstallTimes;
+        this.lastUpdateTimes = lastUpdateTimes;
+    }
+
+    static final class Builder {
+        private final Map<String, Integer> indices;
+        private final long[] firstInstallTimes;
+        private final long[] lastUpdateTimes;
+
+        Builder(int expectedSize) {
+            indices = new HashMap<>(expectedSize * 2);
+            firstInstallTimes = new long[expectedSize];
+            lastUpdateTimes = new long[expectedSize];
+        }
+
+        Builder put(String packageName, long firstInstallTime, long lastUpdateTime) {
+            final int index = indices.size();
+            if (index == firstInstallTimes.length) {
+                throw new IllegalStateException("More packages than expected");
+            }
+            if (indices.put(packageName, index) != null) {
+                throw new IllegalArgumentException("Duplicate package " + packageName);
+            }
+            firstInstallTimes[index] = firstInstallTime;
+            lastUpdateTimes[index] = lastUpdateTime;
+            return this;
+        }
+
+        PackageStamps build() {
+            return new PackageStamps(indices, firstInstallTimes, lastUpdateTimes);
+        }
+    }
+
+    long getFirstInstallTime(String packageName) {
+        final Integer index = indices.get(packageName);
+        return index == null ? 0 : firstInstallTimes[index];
+    }
+
+    long getLastUpdateTime(String packageName) {
+        final Integer index = indices.get(packageName);
+        return index == null ? 0 : lastUpdateTimes[index];
+    }
+
+    /**
+     * Returns true unless the package is known and was last updated exactly at the given time,
+     * i.e. anything derived from the package at that time may still be used.
+     */
+    boolean isStale(String packageName, long lastUpdateTime) {
+        final Integer index = indices.get(packageName);
+        return index == null || lastUpdateTime == 0 || lastUpdateTimes[index] != lastUpdateTime;
+    }
+
+    int size() {
+        return indices.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.BitSet;
+
+/**
+ * Layout of a table of rows after some rows are removed and others inserted, for tables kept
+ * as parallel primitive arrays. Kept rows stay in their relative order and added rows go in
+ * front of the old row they were inserted before, so columns are merged in one pass and
+ * permutations of the old rows carry over with one binary insertion per added row.
+ */
+final class RowMerge {
+    /**
+     * A total order on the rows of the merged table.
+     */
+    interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    private final int size;
+    /** New row of each old row, -1 for removed ones. */
+    private final int[] oldToNew;
+    /** New row of each added row, in the order they were added. */
+    private final int[] addedRows;
+
+    /**
+     * @param oldSize  number of rows before the change
+     * @param removed  old rows to drop
+     * @param insertAt for each added row, the old row it goes in front of, or {@code oldSize}
+     *                 to append; must not decrease
+     */
+    RowMerge(int oldSize, BitSet removed, int[] insertAt) {
+        size = oldSize - removed.cardinality() + insertAt.length;
+        oldToNew = new int[oldSize];
+        addedRows = new int[insertAt.length];
+        int row = 0;
+        int next = 0;
+        for (int old = 0; old <= oldSize; old++) {
+            while (next < insertAt.length && insertAt[next] == old) {
+                addedRows[next++] = row++;
+            }
+            if (old == oldSize) {
+                break;
+            }
+            oldToNew[old] = removed.get(old) ? -1 : row++;
+        }
+        if (next != insertAt.length) {
+            throw new IllegalArgumentException("Insertion points out of order or range");
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] merge(int[] oldColumn, int[] addedColumn) {
+        final int[] column = new int[size];
+        for (int old = 0; old < oldToNew.length; old++) {
+            if (oldToNew[old] >= 0) {
+                column[oldToNew[old]] = oldColumn[old];
+            }
+        }
+        for (int i = 0; i < addedRows.length; i++) {
+            column[addedRows[i]] = addedColumn[i];
+        }
+        return column;
+    }
+
+    long[] merge(long[] oldColumn, long[] addedColumn) {
+        final long[] column = new long[size];
+        for (int old = 0; old < oldToNew.length; old++) {
+            if (oldToNew[old] >= 0) {
+                column[oldToNew[old]] = oldColumn[old];
+            }
+        }
+        for (int i = 0; i < addedRows.length; i++) {
+            column[addedRows[i]] = addedColumn[i];
+        }
+        return column;
+    }
+
+    /**
+     * Returns the permutation of the merged rows in the given order, from the permutation of
+     * the old rows in the same order.
+     */
+    int[] mergePermutation(int[] oldPermutation, RowOrder order) {
+        final int[] permutation = new int[size];
+        int length = 0;
+        for (int old : oldPermutation) {
+            if (oldToNew[old] >= 0) {
+                permutation[length++] = oldToNew[old];
+            }
+        }
+        for (int addedRow : addedRows) {
+            final int position = search(permutation, length, addedRow, order);
+            System.arraycopy(permutation, position, permutation, position + 1, length - position);
+            permutation[position] = addedRow;
+            length++;
+        }
+        return permutation;
+    }
+
+    private static int search(int[] permutation, int length, int row, RowOrder order) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (order.compare(permutation[mid], row) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Maps every id through {@code mapping}, e.g. from an old string pool to a new one.
+     */
+    static int[] remap(int[] ids, int[] mapping) {
+        final int[] result = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = mapping[ids[i]];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Order of the picker list when no query is typed.
+ */
+public enum SortOrder {
+    /** By label, with the few most launched apps pinned on top. */
+    LABEL,
+    /** Most recently installed first. */
+    NEWEST_FIRST,
+    /** By package name. */
+    PACKAGE,
+    /** Every launched app by launch frecency, then the rest by label. */
+    LAUNCH_FREQUENCY,
+    /** The current user's apps first, then those of each other profile. */
+    PROFILE;
+
+    private static final String PREFS_NAME = "picker";
+    private static final String KEY_SORT_ORDER = "sort_order";
+
+    public static SortOrder get(Context context) {
+        final String name = getPreferences(context).getString(KEY_SORT_ORDER, LABEL.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return LABEL;
+        }
+    }
+
+    public void save(Context context) {
+        getPreferences(context).edit().putString(KEY_SORT_ORDER, name()).apply();
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of distinct strings addressed by index. The strings are kept sorted in a
+ * single array, so a pool costs one reference per string and lookups by value are a binary
+ * search without any hash table.
+ */
+final class StringPool {
+    private final String[] strings;
+
+    private StringPool(String[] strings) {
+        this.strings = strings;
+    }
+
+    static final class Builder {
+        private final Set<String> strings = new HashSet<>();
+
+        Builder add(String string) {
+            strings.add(string);
+            return this;
+        }
+
+        StringPool build() {
+            final String[] sorted = strings.toArray(new String[strings.size()]);
+            Arrays.sort(sorted);
+            return new StringPool(sorted);
+        }
+    }
+
+    /**
+     * Returns the index of the string, or -1 if it is not in the pool.
+     */
+    int indexOf(String string) {
+        final int index = Arrays.binarySearch(strings, string);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the index in {@code superset} of each string of this pool. Both pools are
+     * sorted, so this is a single pass over both.
+     */
+    int[] indicesIn(StringPool superset) {
+        final int[] indices = new int[strings.length];
+        for (int i = 0, j = 0; i < indices.length; i++, j++) {
+            while (!superset.strings[j].equals(strings[i])) {
+                j++;
+            }
+            indices[i] = j;
+        }
+        return indices;
+    }
+
+    String get(int index) {
+        return strings[index];
+    }
+
+    int size() {
+        return strings.length;
+    }
+}
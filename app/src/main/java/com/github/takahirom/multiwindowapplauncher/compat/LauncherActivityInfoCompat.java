@@ -24,6 +24,8 @@ import android.graphics.drawable.Drawable;
 
 public abstract class LauncherActivityInfoCompat {
 
+    private volatile CharSequence mLabel;
+
     LauncherActivityInfoCompat() {
     }
 
@@ -31,7 +33,19 @@ public abstract class LauncherActivityInfoCompat {
 
     public abstract UserHandleCompat getUser();
 
-    public abstract CharSequence getLabel();
+    /**
+     * Returns the label, loading it from the package resources only on the first call.
+     */
+    public CharSequence getLabel() {
+        CharSequence label = mLabel;
+        if (label == null) {
+            label = loadLabel();
+            mLabel = label;
+        }
+        return label;
+    }
+
+    protected abstract CharSequence loadLabel();
 
     public abstract Drawable getIcon(int density);
 
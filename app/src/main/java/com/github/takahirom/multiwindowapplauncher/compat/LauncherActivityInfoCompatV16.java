@@ -33,6 +33,7 @@ public class LauncherActivityInfoCompatV16 extends LauncherActivityInfoCompat {
     private final ActivityInfo mActivityInfo;
     private final ComponentName mComponentName;
     private final PackageManager mPm;
+    private volatile long mFirstInstallTime = -1;
 
     LauncherActivityInfoCompatV16(Context context, ResolveInfo info) {
         super();
@@ -50,7 +51,7 @@ public class LauncherActivityInfoCompatV16 extends LauncherActivityInfoCompat {
         return UserHandleCompat.myUserHandle();
     }
 
-    public CharSequence getLabel() {
+    protected CharSequence loadLabel() {
         return mResolveInfo.loadLabel(mPm);
     }
 
@@ -82,12 +83,18 @@ public class LauncherActivityInfoCompatV16 extends LauncherActivityInfoCompat {
     }
 
     public long getFirstInstallTime() {
-        try {
-            PackageInfo info = mPm.getPackageInfo(mActivityInfo.packageName, 0);
-            return info != null ? info.firstInstallTime : 0;
-        } catch (NameNotFoundException e) {
-            return 0;
+        // The install time of a package never changes, look it up at most once.
+        long firstInstallTime = mFirstInstallTime;
+        if (firstInstallTime < 0) {
+            try {
+                PackageInfo info = mPm.getPackageInfo(mActivityInfo.packageName, 0);
+                firstInstallTime = info != null ? info.firstInstallTime : 0;
+            } catch (NameNotFoundException e) {
+                firstInstallTime = 0;
+            }
+            mFirstInstallTime = firstInstallTime;
         }
+        return firstInstallTime;
     }
 
     public String getName() {
@@ -40,7 +40,7 @@ public class LauncherActivityInfoCompatVL extends LauncherActivityInfoCompat {
         return UserHandleCompat.fromUser(mLauncherActivityInfo.getUser());
     }
 
-    public CharSequence getLabel() {
+    protected CharSequence loadLabel() {
         return mLauncherActivityInfo.getLabel();
     }
 
@@ -35,7 +35,7 @@ public abstract class LauncherAppsCompat {
     public static final String ACTION_MANAGED_PROFILE_REMOVED =
             "android.intent.action.MANAGED_PROFILE_REMOVED";
 
-    interface OnAppsChangedCallbackCompat {
+    public interface OnAppsChangedCallbackCompat {
         void onPackageRemoved(String packageName, UserHandleCompat user);
 
         void onPackageAdded(String packageName, UserHandleCompat user);
@@ -32,6 +32,7 @@ import android.provider.Settings;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Version of {@link LauncherAppsCompat} for devices with API level 16.
@@ -42,8 +43,9 @@ class LauncherAppsCompatV16 extends LauncherAppsCompat {
 
     private PackageManager pm;
     private Context context;
-    private List<OnAppsChangedCallbackCompat> callbacks
-            = new ArrayList<>();
+    // Broadcasts iterate without locking or copying; registrations are rare.
+    private final List<OnAppsChangedCallbackCompat> callbacks
+            = new CopyOnWriteArrayList<>();
     private PackageMonitor packageMonitor;
 
     LauncherAppsCompatV16(Context context) {
@@ -138,8 +140,8 @@ class LauncherAppsCompatV16 extends LauncherAppsCompat {
         context.registerReceiver(packageMonitor, filter);
     }
 
-    synchronized List<OnAppsChangedCallbackCompat> getCallbacks() {
-        return new ArrayList<>(callbacks);
+    List<OnAppsChangedCallbackCompat> getCallbacks() {
+        return callbacks;
     }
 
     class PackageMonitor extends BroadcastReceiver {
@@ -0,0 +1,79 @@
+package com.github.takahirom.multiwindowapplauncher.compat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable mapping between user serial numbers and users. Serials are kept in a sorted
+ * primitive array and the users in a parallel array, so lookups in either direction neither
+ * lock nor box. A device has only a handful of profiles, a scan is as fast as hashing.
+ */
+final class SerialTable<E> {
+    private final long[] serials;
+    private final Object[] users;
+
+    /**
+     * @param serials serial number of each user, in any order
+     * @param users   users in the same order as their serials
+     */
+    SerialTable(long[] serials, Object[] users) {
+        if (serials.length != users.length) {
+            throw new IllegalArgumentException("serials and users differ in length");
+        }
+        this.serials = Arrays.copyOf(serials, serials.length);
+        this.users = Arrays.copyOf(users, users.length);
+        // Insertion sort by serial, there are only a few entries.
+        for (int i = 1; i < this.serials.length; i++) {
+            final long serial = this.serials[i];
+            final Object user = this.users[i];
+            int j = i - 1;
+            for (; j >= 0 && this.serials[j] > serial; j--) {
+                this.serials[j + 1] = this.serials[j];
+                this.users[j + 1] = this.users[j];
+            }
+            this.serials[j + 1] = serial;
+            this.users[j + 1] = user;
+        }
+    }
+
+    /**
+     * Returns the user with the serial number, or null if it is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    E getUser(long serial) {
+        final int index = Arrays.binarySearch(serials, serial);
+        return index >= 0 ? (E) users[index] : null;
+    }
+
+    /**
+     * Returns the serial number of the user, or {@code missing} if it is not in the table.
+     */
+    long getSerial(E user, long missing) {
+        // Users are interned, so the identity check almost always decides.
+        for (int i = 0; i < users.length; i++) {
+            if (users[i] == user) {
+                return serials[i];
+            }
+        }
+        for (int i = 0; i < users.length; i++) {
+            if (users[i].equals(user)) {
+                return serials[i];
+            }
+        }
+        return missing;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<E> getUsers() {
+        final List<E> list = new ArrayList<>(users.length);
+        for (Object user : users) {
+            list.add((E) user);
+        }
+        return list;
+    }
+
+    int size() {
+        return serials.length;
+    }
+}
@@ -21,7 +21,18 @@ import android.content.Intent;
 import android.os.Build;
 import android.os.UserHandle;
 
+import java.util.Arrays;
+
+/**
+ * Wrapper of {@link UserHandle}. Instances are interned, there is exactly one per user, so
+ * hot paths can hand them around and compare them without allocating.
+ */
 public class UserHandleCompat {
+    private static final Object internLock = new Object();
+    /** Copy-on-write, only grows when a user is seen for the first time. */
+    private static volatile UserHandleCompat[] interned = new UserHandleCompat[0];
+    private static volatile UserHandleCompat myUser;
+
     private UserHandle mUser;
 
     private UserHandleCompat(UserHandle user) {
@@ -33,21 +44,48 @@ public class UserHandleCompat {
 
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
     public static UserHandleCompat myUserHandle() {
-        if (Utilities.ATLEAST_JB_MR1) {
-            return new UserHandleCompat(android.os.Process.myUserHandle());
-        } else {
-            return new UserHandleCompat();
+        UserHandleCompat user = myUser;
+        if (user == null) {
+            if (Utilities.ATLEAST_JB_MR1) {
+                user = fromUser(android.os.Process.myUserHandle());
+            } else {
+                user = new UserHandleCompat();
+            }
+            myUser = user;
         }
+        return user;
     }
 
     public static UserHandleCompat fromUser(UserHandle user) {
         if (user == null) {
             return null;
-        } else {
-            return new UserHandleCompat(user);
+        }
+        UserHandleCompat compat = find(interned, user);
+        if (compat != null) {
+            return compat;
+        }
+        synchronized (internLock) {
+            final UserHandleCompat[] current = interned;
+            compat = find(current, user);
+            if (compat == null) {
+                compat = new UserHandleCompat(user);
+                final UserHandleCompat[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = compat;
+                interned = grown;
+            }
+            return compat;
         }
     }
 
+    private static UserHandleCompat find(UserHandleCompat[] users, UserHandle user) {
+        for (UserHandleCompat compat : users) {
+            if (compat.mUser.equals(user)) {
+                return compat;
+            }
+        }
+        return null;
+    }
+
     UserHandle getUser() {
         return mUser;
     }
@@ -63,6 +101,9 @@ public class UserHandleCompat {
 
     @Override
     public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
         if (!(other instanceof UserHandleCompat)) {
             return false;
         }
@@ -22,7 +22,7 @@ import android.graphics.drawable.Drawable;
 
 import java.util.List;
 
-abstract class UserManagerCompat {
+public abstract class UserManagerCompat {
     UserManagerCompat() {
     }
 
@@ -20,18 +20,15 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.os.Build;
 import android.os.UserManager;
-import android.support.v4.util.ArrayMap;
-
-
-import java.util.HashMap;
 
 @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
 public class UserManagerCompatV17 extends UserManagerCompatV16 {
 
-    protected ArrayMap<Long, UserHandleCompat> mUsers;
-    // Create a separate reverse map as LongArrayMap.indexOfValue checks if objects are same
-    // and not {@link Object#equals}
-    protected HashMap<UserHandleCompat, Long> mUserToSerialMap;
+    /**
+     * Users and serials captured by {@link #enableAndResetCache()}, or null while caching is
+     * off. Replaced as a whole, so readers only need the volatile read.
+     */
+    protected volatile SerialTable<UserHandleCompat> mTable;
 
     protected UserManager mUserManager;
 
@@ -40,34 +37,25 @@ public class UserManagerCompatV17 extends UserManagerCompatV16 {
     }
 
     public long getSerialNumberForUser(UserHandleCompat user) {
-        synchronized (this) {
-            if (mUserToSerialMap != null) {
-                Long serial = mUserToSerialMap.get(user);
-                return serial == null ? 0 : serial;
-            }
+        final SerialTable<UserHandleCompat> table = mTable;
+        if (table != null) {
+            return table.getSerial(user, 0);
         }
         return mUserManager.getSerialNumberForUser(user.getUser());
     }
 
     public UserHandleCompat getUserForSerialNumber(long serialNumber) {
-        synchronized (this) {
-            if (mUsers != null) {
-                return mUsers.get(serialNumber);
-            }
+        final SerialTable<UserHandleCompat> table = mTable;
+        if (table != null) {
+            return table.getUser(serialNumber);
         }
         return UserHandleCompat.fromUser(mUserManager.getUserForSerialNumber(serialNumber));
     }
 
     @Override
     public void enableAndResetCache() {
-        synchronized (this) {
-            mUsers = new ArrayMap<>();
-            mUserToSerialMap = new HashMap<>();
-            UserHandleCompat myUser = UserHandleCompat.myUserHandle();
-            long serial = mUserManager.getSerialNumberForUser(myUser.getUser());
-            mUsers.put(serial, myUser);
-            mUserToSerialMap.put(myUser, serial);
-        }
+        UserHandleCompat myUser = UserHandleCompat.myUserHandle();
+        long serial = mUserManager.getSerialNumberForUser(myUser.getUser());
+        mTable = new SerialTable<>(new long[]{serial}, new Object[]{myUser});
     }
 }
-
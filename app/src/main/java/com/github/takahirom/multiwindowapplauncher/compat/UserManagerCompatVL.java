@@ -24,11 +24,9 @@ import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.UserHandle;
-import android.support.v4.util.ArrayMap;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 
 @TargetApi(Build.VERSION_CODES.LOLLIPOP)
@@ -46,29 +44,25 @@ public class UserManagerCompatVL extends UserManagerCompatV17 {
 
     @Override
     public void enableAndResetCache() {
-        synchronized (this) {
-            mUsers = new ArrayMap<>();
-            mUserToSerialMap = new HashMap<>();
-            List<UserHandle> users = mUserManager.getUserProfiles();
-            if (users != null) {
-                for (UserHandle user : users) {
-                    long serial = mUserManager.getSerialNumberForUser(user);
-                    UserHandleCompat userCompat = UserHandleCompat.fromUser(user);
-                    mUsers.put(serial, userCompat);
-                    mUserToSerialMap.put(userCompat, serial);
-                }
-            }
+        List<UserHandle> users = mUserManager.getUserProfiles();
+        if (users == null) {
+            users = Collections.emptyList();
+        }
+        long[] serials = new long[users.size()];
+        UserHandleCompat[] compatUsers = new UserHandleCompat[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            UserHandle user = users.get(i);
+            serials[i] = mUserManager.getSerialNumberForUser(user);
+            compatUsers[i] = UserHandleCompat.fromUser(user);
         }
+        mTable = new SerialTable<>(serials, compatUsers);
     }
 
     @Override
     public List<UserHandleCompat> getUserProfiles() {
-        synchronized (this) {
-            if (mUsers != null) {
-                List<UserHandleCompat> users = new ArrayList<>();
-                users.addAll(mUserToSerialMap.keySet());
-                return users;
-            }
+        SerialTable<UserHandleCompat> table = mTable;
+        if (table != null) {
+            return table.getUsers();
         }
 
         List<UserHandle> users = mUserManager.getUserProfiles();
@@ -35,6 +35,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PaintFlagsDrawFilter;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.text.TextUtils;
 import android.util.DisplayMetrics;
@@ -53,7 +54,7 @@ import java.util.regex.Pattern;
 /**
  * Various utilities shared amongst the Launcher's classes.
  */
-final class Utilities {
+public final class Utilities {
     private static final String TAG = "Launcher.Utilities";
     private static final Rect oldBounds = new Rect();
     private static final Canvas canvas = new Canvas();
@@ -72,4 +73,27 @@ final class Utilities {
     public static final boolean ATLEAST_JB_MR1 =
             Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1;
 
+    /**
+     * Returns a bitmap of the given size containing the icon drawn at its full bounds.
+     * Any drawable type works, including those that are not backed by a bitmap.
+     */
+    public static Bitmap createIconBitmap(Drawable icon, int size) {
+        return drawIcon(icon, Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+    }
+
+    /**
+     * Clears the mutable target bitmap and draws the icon into it at its full size.
+     */
+    public static Bitmap drawIcon(Drawable icon, Bitmap target) {
+        synchronized (canvas) {
+            target.eraseColor(Color.TRANSPARENT);
+            canvas.setBitmap(target);
+            oldBounds.set(icon.getBounds());
+            icon.setBounds(0, 0, target.getWidth(), target.getHeight());
+            icon.draw(canvas);
+            icon.setBounds(oldBounds);
+            canvas.setBitmap(null);
+            return target;
+        }
+    }
 }
\ No newline at end of file
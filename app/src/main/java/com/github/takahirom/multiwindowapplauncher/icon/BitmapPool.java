@@ -0,0 +1,31 @@
+package com.github.takahirom.multiwindowapplauncher.icon;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of same sized ARGB_8888 bitmaps that can be drawn into again.
+ */
+class BitmapPool {
+    private final int size;
+    private final int maxPooled;
+    private final ArrayDeque<Bitmap> pool = new ArrayDeque<>();
+
+    BitmapPool(int size, int maxPooled) {
+        this.size = size;
+        this.maxPooled = maxPooled;
+    }
+
+    synchronized Bitmap acquire() {
+        final Bitmap bitmap = pool.poll();
+        return bitmap != null ? bitmap : Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    }
+
+    synchronized void release(Bitmap bitmap) {
+        if (bitmap.isMutable() && bitmap.getWidth() == size && bitmap.getHeight() == size
+                && pool.size() < maxPooled) {
+            pool.push(bitmap);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.takahirom.multiwindowapplauncher.icon;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+import com.github.takahirom.multiwindowapplauncher.compat.Utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Two level cache of rendered app icons keyed by component, user and density.
+ * The memory tier is an LRU bounded by bitmap bytes; the disk tier keeps pre-rendered PNGs
+ * so icons survive process restarts. Entries are tagged with the package update stamp and
+ * dropped as soon as the package is updated. Icons without a known stamp, e.g. those of other
+ * profiles, are only kept in memory, where package events invalidate them.
+ * Icons of other profiles are cached with their badge, so the picker and shortcut creation
+ * share the composited bitmap instead of badging again on every request.
+ */
+public class IconCache {
+    private static final String TAG = "IconCache";
+    private static final String DIR_NAME = "icons";
+
+    private static IconCache instance;
+    private static final Object instanceLock = new Object();
+
+    public static IconCache getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new IconCache(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private static class CachedIcon {
+        final Bitmap bitmap;
+        final long lastUpdateTime;
+
+        CachedIcon(Bitmap bitmap, long lastUpdateTime) {
+            this.bitmap = bitmap;
+            this.lastUpdateTime = lastUpdateTime;
+        }
+    }
+
+    private final Context context;
+    private final File cacheDir;
+    private final int iconSize;
+    private final int displayDensity;
+    private final LruCache<String, CachedIcon> memoryCache;
+
+    private IconCache(Context context) {
+        this.context = context;
+        cacheDir = new File(context.getCacheDir(), DIR_NAME);
+        iconSize = context.getResources().getDimensionPixelSize(android.R.dimen.app_icon_size);
+        displayDensity = context.getResources().getDisplayMetrics().densityDpi;
+        final int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+        memoryCache = new LruCache<String, CachedIcon>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, CachedIcon value) {
+                return value.bitmap.getByteCount();
+            }
+        };
+    }
+
+    public int getIconSize() {
+        return iconSize;
+    }
+
+    /**
+     * Size in pixels of icons rendered for the given density.
+     */
+    public int getIconSize(int density) {
+        return density == displayDensity ? iconSize : Math.round((float) iconSize * density / displayDensity);
+    }
+
+    /**
+     * Returns the icon only if it is in the memory tier and still up to date.
+     */
+    @Nullable
+    public Bitmap getCachedIcon(AppEntry entry, int density) {
+        final CachedIcon cached = memoryCache.get(getKey(entry, density));
+        if (cached == null || cached.lastUpdateTime != entry.getLastUpdateTime()) {
+            return null;
+        }
+        return cached.bitmap;
+    }
+
+    /**
+     * Returns the icon from memory, then disk, and only decodes it from the package as a last
+     * resort. May block on disk or package manager access.
+     */
+    @Nullable
+    public Bitmap getIcon(AppEntry entry, int density) {
+        final String key = getKey(entry, density);
+        final long lastUpdateTime = entry.getLastUpdateTime();
+        final CachedIcon cached = memoryCache.get(key);
+        if (cached != null && cached.lastUpdateTime == lastUpdateTime) {
+            return cached.bitmap;
+        }
+
+        // Without a stamp an icon written before a restart could not be told from a stale one.
+        final boolean useDisk = lastUpdateTime != 0;
+        final File file = getFile(entry, key);
+        Bitmap bitmap = useDisk ? readFromDisk(file, key, lastUpdateTime) : null;
+        if (bitmap == null) {
+            final Drawable drawable = entry.getIcon(context, density);
+            if (drawable == null) {
+                return null;
+            }
+            bitmap = Utilities.createIconBitmap(drawable, getIconSize(density));
+            if (useDisk) {
+                writeToDisk(file, key, lastUpdateTime, bitmap);
+            }
+        }
+        memoryCache.put(key, new CachedIcon(bitmap, lastUpdateTime));
+        return bitmap;
+    }
+
+    private static String getKey(AppEntry entry, int density) {
+        return entry.getKey() + "@" + density;
+    }
+
+    /**
+     * Drops the icons of a package in one profile from both tiers, e.g. after its components
+     * changed. May block on disk access.
+     */
+    public void invalidatePackage(String packageName, long userSerial) {
+        final String prefix = packageName + "/";
+        final String serialTag = "#" + userSerial + "@";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix) && key.contains(serialTag)) {
+                memoryCache.remove(key);
+            }
+        }
+        deleteRecursively(new File(getUserDir(userSerial), packageName));
+    }
+
+    /**
+     * Drops all icons of a profile from both tiers, e.g. after it has been removed. May block
+     * on disk access.
+     */
+    public void invalidateUser(long userSerial) {
+        final String serialTag = "#" + userSerial + "@";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.contains(serialTag)) {
+                memoryCache.remove(key);
+            }
+        }
+        deleteRecursively(getUserDir(userSerial));
+    }
+
+    private File getUserDir(long userSerial) {
+        return new File(cacheDir, String.valueOf(userSerial));
+    }
+
+    private File getFile(AppEntry entry, String key) {
+        final File packageDir = new File(getUserDir(entry.getUserSerial()),
+                entry.getComponentName().getPackageName());
+        return new File(packageDir, Integer.toHexString(key.hashCode()) + ".png");
+    }
+
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Nullable
+    private static Bitmap readFromDisk(File file, String key, long lastUpdateTime) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (!key.equals(in.readUTF()) || in.readLong() != lastUpdateTime) {
+                // Hash collision or the package has been updated since the icon was written.
+                return null;
+            }
+            return BitmapFactory.decodeStream(in);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read icon " + key, e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void writeToDisk(File file, String key, long lastUpdateTime, Bitmap bitmap) {
+        final File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        // Write to a temporary file first so readers never see a partially written icon.
+        final File tmpFile = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            out.writeUTF(key);
+            out.writeLong(lastUpdateTime);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            out.close();
+            out = null;
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write icon " + key, e);
+            tmpFile.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
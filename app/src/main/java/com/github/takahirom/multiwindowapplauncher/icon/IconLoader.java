@@ -0,0 +1,137 @@
+package com.github.takahirom.multiwindowapplauncher.icon;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.widget.TextView;
+
+import com.github.takahirom.multiwindowapplauncher.R;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binds icons from the {@link IconCache} to list rows without blocking the main thread.
+ * Memory hits are bound synchronously; misses show a placeholder and are loaded on a small
+ * background pool. The most recently bound rows are loaded first so the rows currently on
+ * screen win over rows that were scrolled past, and a recycled row cancels its old request.
+ * Prefetches for rows just outside the viewport only run when no bind is waiting.
+ */
+public class IconLoader {
+    private static final int POOL_SIZE = 2;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+            30, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+    private static final AtomicLong sequence = new AtomicLong();
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private final IconCache iconCache;
+    private final Resources resources;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Drawable placeholder = new ColorDrawable(Color.TRANSPARENT);
+
+    public IconLoader(Context context) {
+        iconCache = IconCache.getInstance(context);
+        resources = context.getResources();
+        placeholder.setBounds(0, 0, iconCache.getIconSize(), iconCache.getIconSize());
+    }
+
+    public void bind(TextView view, AppEntry entry, int density) {
+        cancel(view);
+        final Bitmap cached = iconCache.getCachedIcon(entry, density);
+        if (cached != null) {
+            setIcon(view, cached);
+            return;
+        }
+        view.setCompoundDrawables(placeholder, null, null, null);
+        final IconTask task = new IconTask(view, entry, density);
+        view.setTag(R.id.icon_loader_task, task);
+        executor.execute(task);
+    }
+
+    /**
+     * Warms the cache for a row that is about to be shown. Prefetches run after all pending binds.
+     */
+    public void prefetch(AppEntry entry, int density) {
+        if (iconCache.getCachedIcon(entry, density) == null) {
+            executor.execute(new IconTask(null, entry, density));
+        }
+    }
+
+    /**
+     * Cancels the pending request of the given row, if any.
+     */
+    public void cancel(TextView view) {
+        final Object tag = view.getTag(R.id.icon_loader_task);
+        if (tag instanceof IconTask) {
+            final IconTask task = (IconTask) tag;
+            task.cancelled = true;
+            executor.remove(task);
+            view.setTag(R.id.icon_loader_task, null);
+        }
+    }
+
+    private void setIcon(TextView view, Bitmap bitmap) {
+        final Drawable drawable = new BitmapDrawable(resources, bitmap);
+        drawable.setBounds(0, 0, iconCache.getIconSize(), iconCache.getIconSize());
+        view.setCompoundDrawables(drawable, null, null, null);
+    }
+
+    private class IconTask implements Runnable, Comparable<IconTask> {
+        @Nullable
+        private final TextView view;
+        private final AppEntry entry;
+        private final int density;
+        private final long order = sequence.incrementAndGet();
+        volatile boolean cancelled;
+
+        IconTask(@Nullable TextView view, AppEntry entry, int density) {
+            this.view = view;
+            this.entry = entry;
+            this.density = density;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            final Bitmap bitmap = iconCache.getIcon(entry, density);
+            if (bitmap == null || cancelled || view == null) {
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled && view.getTag(R.id.icon_loader_task) == IconTask.this) {
+                        view.setTag(R.id.icon_loader_task, null);
+                        setIcon(view, bitmap);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(IconTask other) {
+            final boolean prefetch = view == null;
+            if (prefetch != (other.view == null)) {
+                return prefetch ? 1 : -1;
+            }
+            // Newest first.
+            return order > other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
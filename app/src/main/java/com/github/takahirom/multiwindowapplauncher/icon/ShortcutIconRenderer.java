@@ -0,0 +1,88 @@
+package com.github.takahirom.multiwindowapplauncher.icon;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.WorkerThread;
+import android.util.LruCache;
+
+import com.github.takahirom.multiwindowapplauncher.compat.Utilities;
+
+/**
+ * Renders application icons for home screen shortcuts at the launcher's icon size and density.
+ * Results are cached per package version; bitmaps evicted from the cache go back to a pool
+ * and are drawn into again instead of being reallocated.
+ */
+public class ShortcutIconRenderer {
+    private static final int MAX_CACHED_ICONS = 32;
+    private static final int MAX_POOLED_BITMAPS = 4;
+
+    private static ShortcutIconRenderer instance;
+    private static final Object instanceLock = new Object();
+
+    public static ShortcutIconRenderer getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new ShortcutIconRenderer(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final PackageManager pm;
+    private final int iconDensity;
+    private final BitmapPool pool;
+    private final LruCache<String, Bitmap> cache;
+
+    private ShortcutIconRenderer(Context context) {
+        pm = context.getPackageManager();
+        final ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        iconDensity = am.getLauncherLargeIconDensity();
+        pool = new BitmapPool(am.getLauncherLargeIconSize(), MAX_POOLED_BITMAPS);
+        cache = new LruCache<String, Bitmap>(MAX_CACHED_ICONS) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                pool.release(oldValue);
+            }
+        };
+    }
+
+    /**
+     * Returns the shortcut icon of the package. The returned bitmap is owned by the cache and
+     * must not be modified or recycled; once evicted it is reused, so callers have to be done
+     * with it before rendering many other packages.
+     */
+    @WorkerThread
+    public Bitmap render(PackageInfo packageInfo) {
+        final String key = packageInfo.packageName + "@" + packageInfo.lastUpdateTime;
+        synchronized (cache) {
+            final Bitmap cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            final Bitmap bitmap = Utilities.drawIcon(loadIcon(packageInfo.applicationInfo), pool.acquire());
+            cache.put(key, bitmap);
+            return bitmap;
+        }
+    }
+
+    private Drawable loadIcon(ApplicationInfo applicationInfo) {
+        if (applicationInfo.icon != 0) {
+            try {
+                final Resources resources = pm.getResourcesForApplication(applicationInfo);
+                final Drawable icon = resources.getDrawableForDensity(applicationInfo.icon, iconDensity, null);
+                if (icon != null) {
+                    return icon;
+                }
+            } catch (PackageManager.NameNotFoundException | Resources.NotFoundException e) {
+                // Fall back to the default density below.
+            }
+        }
+        return pm.getApplicationIcon(applicationInfo);
+    }
+}
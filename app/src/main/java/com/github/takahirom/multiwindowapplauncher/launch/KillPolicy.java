@@ -0,0 +1,39 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * When to kill the target's background process before launching it into multi-window.
+ * Killing forces a cold start, which makes apps that don't handle the multi-window
+ * configuration change come up with the right window size, at the cost of a slower launch.
+ */
+public enum KillPolicy {
+    ALWAYS,
+    NEVER,
+    /**
+     * Only if the target is not resumed already. Needs usage access, without it the target
+     * is always killed.
+     */
+    IF_NOT_FOREGROUND;
+
+    private static final String PREFS_NAME = "launch";
+    private static final String KEY_KILL_POLICY = "kill_policy";
+
+    public static KillPolicy get(Context context) {
+        final String name = getPreferences(context).getString(KEY_KILL_POLICY, ALWAYS.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return ALWAYS;
+        }
+    }
+
+    public void save(Context context) {
+        getPreferences(context).edit().putString(KEY_KILL_POLICY, name()).apply();
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
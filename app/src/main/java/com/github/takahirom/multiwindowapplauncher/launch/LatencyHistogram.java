@@ -0,0 +1,84 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+/**
+ * Fixed size log-linear histogram of latencies in microseconds.
+ * Values below 16us get their own bucket; above that every power of two is split into
+ * 8 buckets, so percentiles are accurate to about 12.5%. Recording never allocates.
+ * Not thread safe.
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MSB = 42;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_MSB - 3) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        counts[bucketIndex(micros)]++;
+        count++;
+        sum += micros;
+        if (micros > max) {
+            max = micros;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given percentile, capped at the
+     * largest recorded value.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, bucketUpperBound(i));
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        final int msb = 63 - Long.numberOfLeadingZeros(micros);
+        if (msb > MAX_MSB) {
+            return BUCKET_COUNT - 1;
+        }
+        final int mantissa = (int) (micros >>> (msb - SUB_BUCKET_BITS));
+        return LINEAR_BUCKETS + (msb - 4) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        final int msb = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        final long mantissa = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << (msb - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+/**
+ * What the kill step did to the target process before a launch.
+ */
+public enum LaunchOutcome {
+    /**
+     * Background processes of the package were killed. The target starts cold if it had one,
+     * killBackgroundProcesses does not tell whether it did.
+     */
+    KILL_REQUESTED,
+    /** The process was running in the foreground and kept, the target can start warm. */
+    KEPT_RUNNING,
+    /** No kill was attempted because of the policy. */
+    NOT_KILLED
+}
@@ -0,0 +1,19 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+/**
+ * Measured steps between a tap in the picker and the target activity being started.
+ */
+public enum LaunchPhase {
+    /** Picker tap until the trampoline activity is created. */
+    TAP_TO_TRAMPOLINE,
+    /** Trampoline onCreate until the window is in multi-window mode. */
+    WAIT_FOR_MULTI_WINDOW,
+    /** killBackgroundProcesses for the target package, only recorded when a kill was requested. */
+    KILL_PROCESS,
+    /** startActivityForResult for the target activity. */
+    START_ACTIVITY,
+    /** Start of the adjacent activity of a pair until it is placed and the primary one can follow. */
+    PLACE_ADJACENT,
+    /** Picker tap (or trampoline creation when started from a shortcut) until the target is started. */
+    TOTAL
+}
@@ -0,0 +1,142 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process latency histograms of launch phases, overall and per target package.
+ */
+public class LaunchStats {
+    private static final String TAG = "LaunchStats";
+    private static final String ALL_PACKAGES = "*";
+
+    private static final LaunchStats instance = new LaunchStats();
+
+    public static LaunchStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Monotonic timestamp in microseconds, comparable across activities of this process.
+     */
+    public static long now() {
+        return SystemClock.elapsedRealtimeNanos() / 1000;
+    }
+
+    private final Map<String, EnumMap<LaunchPhase, LatencyHistogram>> histograms = new HashMap<>();
+    private final Map<String, long[]> outcomes = new HashMap<>();
+    private final EnumMap<StartupPhase, LatencyHistogram> startup = new EnumMap<>(StartupPhase.class);
+
+    private LaunchStats() {
+    }
+
+    public synchronized void record(String packageName, LaunchPhase phase, long micros) {
+        getHistogram(ALL_PACKAGES, phase).record(micros);
+        getHistogram(packageName, phase).record(micros);
+    }
+
+    public synchronized void recordOutcome(String packageName, LaunchOutcome outcome) {
+        getOutcomes(ALL_PACKAGES)[outcome.ordinal()]++;
+        getOutcomes(packageName)[outcome.ordinal()]++;
+    }
+
+    public synchronized void recordStartup(StartupPhase phase, long micros) {
+        LatencyHistogram histogram = startup.get(phase);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            startup.put(phase, histogram);
+        }
+        histogram.record(micros);
+    }
+
+    private long[] getOutcomes(String packageName) {
+        long[] counts = outcomes.get(packageName);
+        if (counts == null) {
+            counts = new long[LaunchOutcome.values().length];
+            outcomes.put(packageName, counts);
+        }
+        return counts;
+    }
+
+    private LatencyHistogram getHistogram(String packageName, LaunchPhase phase) {
+        EnumMap<LaunchPhase, LatencyHistogram> phases = histograms.get(packageName);
+        if (phases == null) {
+            phases = new EnumMap<>(LaunchPhase.class);
+            histograms.put(packageName, phases);
+        }
+        LatencyHistogram histogram = phases.get(phase);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            phases.put(phase, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Writes a tab separated table of count, mean and p50/p95/p99/max in milliseconds per
+     * package and phase, followed by how often each {@link LaunchOutcome} occurred and the
+     * {@link StartupPhase}s of this app. The "*" package aggregates all packages.
+     */
+    public synchronized boolean export(File file) {
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(new FileWriter(file));
+            writer.println("package\tphase\tcount\tmean_ms\tp50_ms\tp95_ms\tp99_ms\tmax_ms");
+            for (Map.Entry<String, EnumMap<LaunchPhase, LatencyHistogram>> packageEntry
+                    : new TreeMap<>(histograms).entrySet()) {
+                for (Map.Entry<LaunchPhase, LatencyHistogram> phaseEntry : packageEntry.getValue().entrySet()) {
+                    writer.println(packageEntry.getKey() + "\t" + phaseEntry.getKey()
+                            + "\t" + format(phaseEntry.getValue()));
+                }
+            }
+            writer.println();
+            writer.print("package");
+            for (LaunchOutcome outcome : LaunchOutcome.values()) {
+                writer.print("\t" + outcome);
+            }
+            writer.println();
+            for (Map.Entry<String, long[]> packageEntry : new TreeMap<>(outcomes).entrySet()) {
+                writer.print(packageEntry.getKey());
+                for (long count : packageEntry.getValue()) {
+                    writer.print("\t" + count);
+                }
+                writer.println();
+            }
+            writer.println();
+            writer.println("startup_phase\tcount\tmean_ms\tp50_ms\tp95_ms\tp99_ms\tmax_ms");
+            for (Map.Entry<StartupPhase, LatencyHistogram> phaseEntry : startup.entrySet()) {
+                writer.println(phaseEntry.getKey() + "\t" + format(phaseEntry.getValue()));
+            }
+            return !writer.checkError();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to export launch stats", e);
+            return false;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private static String format(LatencyHistogram histogram) {
+        return histogram.getCount()
+                + "\t" + toMillis(histogram.getMean())
+                + "\t" + toMillis(histogram.getPercentile(50))
+                + "\t" + toMillis(histogram.getPercentile(95))
+                + "\t" + toMillis(histogram.getPercentile(99))
+                + "\t" + toMillis(histogram.getMax());
+    }
+
+    private static String toMillis(long micros) {
+        return String.valueOf(micros / 1000.0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+import android.app.ActivityManager;
+import android.app.AppOpsManager;
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Applies the {@link KillPolicy} on a background thread and then runs the launch on the main
+ * thread, so the binder calls never block the trampoline's UI thread.
+ */
+public class ProcessKiller {
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Only one activity is resumed at a time, so the target moved to the background when the
+     * user turned to our picker; only an app resumed within this window can still be resumed.
+     */
+    private static final long FOREGROUND_LOOKBACK_MILLIS = 10 * 1000;
+
+    private final Context context;
+    private final ActivityManager activityManager;
+    private final UsageStatsManager usageStatsManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ProcessKiller(Context context) {
+        this.context = context.getApplicationContext();
+        activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+    }
+
+    /**
+     * Kills the package according to the policy and posts {@code launch} to the main thread
+     * once the kill has completed.
+     */
+    public void killThenLaunch(String packageName, KillPolicy policy, Runnable launch) {
+        killThenLaunch(Collections.singletonList(packageName), policy, launch);
+    }
+
+    /**
+     * Kills each of the packages according to the policy and posts {@code launch} to the main
+     * thread once all kills have completed.
+     */
+    public void killThenLaunch(final List<String> packageNames, final KillPolicy policy,
+                               final Runnable launch) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final LaunchStats stats = LaunchStats.getInstance();
+                for (String packageName : packageNames) {
+                    final LaunchOutcome outcome = decide(packageName, policy);
+                    if (outcome == LaunchOutcome.KILL_REQUESTED) {
+                        final long startTime = LaunchStats.now();
+                        activityManager.killBackgroundProcesses(packageName);
+                        stats.record(packageName, LaunchPhase.KILL_PROCESS, LaunchStats.now() - startTime);
+                    }
+                    stats.recordOutcome(packageName, outcome);
+                }
+                mainHandler.post(launch);
+            }
+        });
+    }
+
+    /**
+     * Returns {@link LaunchOutcome#KILL_REQUESTED} if the package is to be killed, otherwise
+     * why it is not.
+     */
+    private LaunchOutcome decide(String packageName, KillPolicy policy) {
+        switch (policy) {
+            case NEVER:
+                return LaunchOutcome.NOT_KILLED;
+            case IF_NOT_FOREGROUND:
+                if (isInForeground(packageName)) {
+                    return LaunchOutcome.KEPT_RUNNING;
+                }
+                break;
+            case ALWAYS:
+            default:
+                break;
+        }
+        return LaunchOutcome.KILL_REQUESTED;
+    }
+
+    /**
+     * Whether the package last moved to the foreground and not back, according to the usage
+     * events of the last {@link #FOREGROUND_LOOKBACK_MILLIS}. The running process list can't
+     * tell, it only reports our own processes since API 22. Without usage access this returns
+     * false and the kill goes ahead, as with {@link KillPolicy#ALWAYS}.
+     * <p>
+     * {@code killBackgroundProcesses} spares foreground processes by itself, so this does not
+     * change what gets killed. It exists to record a warm start as
+     * {@link LaunchOutcome#KEPT_RUNNING} instead of a kill request, and to skip the request.
+     * The query reads every event in its window, hence the short lookback.
+     */
+    private boolean isInForeground(String packageName) {
+        if (!hasUsageAccess(context)) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final UsageEvents events = usageStatsManager.queryEvents(now - FOREGROUND_LOOKBACK_MILLIS, now);
+        if (events == null) {
+            return false;
+        }
+        final UsageEvents.Event event = new UsageEvents.Event();
+        boolean inForeground = false;
+        while (events.getNextEvent(event)) {
+            if (!packageName.equals(event.getPackageName())) {
+                continue;
+            }
+            if (event.getEventType() == UsageEvents.Event.MOVE_TO_FOREGROUND) {
+                inForeground = true;
+            } else if (event.getEventType() == UsageEvents.Event.MOVE_TO_BACKGROUND) {
+                inForeground = false;
+            }
+        }
+        return inForeground;
+    }
+
+    /**
+     * Whether the user granted usage access, which {@link KillPolicy#IF_NOT_FOREGROUND} needs
+     * to see other apps' activity state.
+     */
+    public static boolean hasUsageAccess(Context context) {
+        final AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+        return appOps.checkOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(),
+                context.getPackageName()) == AppOpsManager.MODE_ALLOWED;
+    }
+}
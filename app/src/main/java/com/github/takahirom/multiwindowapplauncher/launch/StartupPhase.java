@@ -0,0 +1,14 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+/**
+ * Measured steps of opening the launcher itself, kept apart from the {@link LaunchPhase}s of
+ * launching other apps.
+ */
+public enum StartupPhase {
+    /** Process start until the first frame of MainActivity, only for cold starts. */
+    COLD_START_TO_FIRST_FRAME,
+    /** Tap on the app button until the first frame of the picker. */
+    TAP_TO_LIST,
+    /** Like {@link #TAP_TO_LIST}, recorded only when the catalog had to be loaded first. */
+    TAP_TO_LIST_NOT_WARM
+}
@@ -0,0 +1,82 @@
+package com.github.takahirom.multiwindowapplauncher.pair;
+
+import android.support.annotation.Nullable;
+
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentKey;
+
+/**
+ * Two activities that are launched side by side: the primary one takes the trampoline's half
+ * of the screen, the secondary one is launched adjacent to it.
+ */
+public final class AppPair {
+    private static final char SEPARATOR = '\t';
+
+    private final ComponentKey primary;
+    private final ComponentKey secondary;
+    private final String label;
+
+    public AppPair(ComponentKey primary, ComponentKey secondary, String label) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.label = label;
+    }
+
+    public ComponentKey getPrimary() {
+        return primary;
+    }
+
+    public ComponentKey getSecondary() {
+        return secondary;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * One line with both keys and the label, see {@link #decode(String)}.
+     */
+    String encode() {
+        return primary.toString() + SEPARATOR + secondary + SEPARATOR
+                + label.replace(SEPARATOR, ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Returns the pair of a line written by {@link #encode()}, or null if it is malformed.
+     */
+    @Nullable
+    static AppPair decode(String line) {
+        final int first = line.indexOf(SEPARATOR);
+        final int second = first < 0 ? -1 : line.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            return null;
+        }
+        final ComponentKey primary = ComponentKey.parse(line.substring(0, first));
+        final ComponentKey secondary = ComponentKey.parse(line.substring(first + 1, second));
+        if (primary == null || secondary == null) {
+            return null;
+        }
+        return new AppPair(primary, secondary, line.substring(second + 1));
+    }
+
+    /**
+     * Pairs are equal if they launch the same activities in the same places, whatever their
+     * label.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AppPair)) {
+            return false;
+        }
+        final AppPair other = (AppPair) o;
+        return primary.equals(other.primary) && secondary.equals(other.secondary);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * primary.hashCode() + secondary.hashCode();
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.takahirom.multiwindowapplauncher.pair;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The saved pairs, in the order they were saved. Kept in memory after the first read and
+ * written back in the background on every change. The first read goes to disk, so it is done
+ * by {@link PairLauncher#prepareSaved} off the main thread.
+ */
+public final class AppPairStore {
+    private static final String PREFS_NAME = "pairs";
+    private static final String KEY_PAIRS = "pairs";
+
+    private static AppPairStore instance;
+    private static final Object instanceLock = new Object();
+
+    public static AppPairStore getInstance(Context context) {
+        synchronized (instanceLock) {
+            if (instance == null) {
+                instance = new AppPairStore(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final SharedPreferences preferences;
+    private List<AppPair> pairs;
+    /** Copy of {@link #pairs} for readers on the main thread. */
+    private volatile List<AppPair> snapshot = Collections.emptyList();
+
+    private AppPairStore(Context context) {
+        preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    @WorkerThread
+    public synchronized List<AppPair> getPairs() {
+        ensureLoaded();
+        return snapshot;
+    }
+
+    /**
+     * Same as {@link #getPairs()} without blocking, so it can be called on the main thread.
+     * Empty until the pairs have been read.
+     */
+    public List<AppPair> peekPairs() {
+        return snapshot;
+    }
+
+    /**
+     * Saves the pair, replacing an equal one.
+     */
+    public synchronized void add(AppPair pair) {
+        ensureLoaded();
+        pairs.remove(pair);
+        pairs.add(pair);
+        save();
+    }
+
+    public synchronized void remove(AppPair pair) {
+        ensureLoaded();
+        if (pairs.remove(pair)) {
+            save();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (pairs != null) {
+            return;
+        }
+        pairs = new ArrayList<>();
+        for (String line : preferences.getString(KEY_PAIRS, "").split("\n")) {
+            final AppPair pair = line.isEmpty() ? null : AppPair.decode(line);
+            if (pair != null) {
+                pairs.add(pair);
+            }
+        }
+        snapshot = Collections.unmodifiableList(new ArrayList<>(pairs));
+    }
+
+    private void save() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(pairs));
+        final StringBuilder lines = new StringBuilder();
+        for (AppPair pair : pairs) {
+            lines.append(pair.encode()).append('\n');
+        }
+        preferences.edit().putString(KEY_PAIRS, lines.toString()).apply();
+    }
+}
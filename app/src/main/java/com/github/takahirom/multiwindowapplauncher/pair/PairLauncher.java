@@ -0,0 +1,110 @@
+package com.github.takahirom.multiwindowapplauncher.pair;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.github.takahirom.multiwindowapplauncher.MultiWindowAppLaunchActivity;
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentKey;
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentValidator;
+import com.github.takahirom.multiwindowapplauncher.launch.LaunchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Launches saved pairs through the multi-window trampoline. Both activities are validated on a
+ * background thread before the trampoline starts; {@link #prepareSaved} resolves all saved
+ * pairs ahead of time, so at launch the check is answered from the {@link ComponentValidator}
+ * cache.
+ */
+public class PairLauncher {
+    public interface Callback {
+        /**
+         * Called on the main thread when an activity of the pair can no longer be launched.
+         */
+        void onPairUnavailable(AppPair pair, ComponentKey unavailable);
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public PairLauncher(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Reads the saved pairs in the background and runs {@code onLoaded} on the main thread
+     * once {@link AppPairStore#peekPairs()} returns them, then validates their activities.
+     */
+    public void prepareSaved(final Runnable onLoaded) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<AppPair> pairs = AppPairStore.getInstance(context).getPairs();
+                mainHandler.post(onLoaded);
+                ComponentValidator.getInstance(context).getEnabled(getKeys(pairs));
+            }
+        });
+    }
+
+    /**
+     * Validates the activities of all pairs in one pass in the background.
+     */
+    public void prepare(Collection<AppPair> pairs) {
+        final List<ComponentKey> keys = getKeys(pairs);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ComponentValidator.getInstance(context).getEnabled(keys);
+            }
+        });
+    }
+
+    private static List<ComponentKey> getKeys(Collection<AppPair> pairs) {
+        final List<ComponentKey> keys = new ArrayList<>(pairs.size() * 2);
+        for (AppPair pair : pairs) {
+            keys.add(pair.getPrimary());
+            keys.add(pair.getSecondary());
+        }
+        return keys;
+    }
+
+    /**
+     * Starts the trampoline for the pair, or reports the first activity that is disabled or
+     * not installed.
+     */
+    public void launch(final Activity activity, final AppPair pair, final Callback callback) {
+        final long tapTime = LaunchStats.now();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Set<ComponentKey> enabled = ComponentValidator.getInstance(context)
+                        .getEnabled(Arrays.asList(pair.getPrimary(), pair.getSecondary()));
+                final ComponentKey unavailable = !enabled.contains(pair.getPrimary()) ? pair.getPrimary()
+                        : !enabled.contains(pair.getSecondary()) ? pair.getSecondary() : null;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (activity.isDestroyed()) {
+                            return;
+                        }
+                        if (unavailable != null) {
+                            callback.onPairUnavailable(pair, unavailable);
+                        } else {
+                            MultiWindowAppLaunchActivity.startPair(activity, pair, tapTime);
+                        }
+                    }
+                });
+            }
+        });
+    }
+}
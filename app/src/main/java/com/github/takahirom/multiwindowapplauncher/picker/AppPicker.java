@@ -0,0 +1,288 @@
+package com.github.takahirom.multiwindowapplauncher.picker;
+
+import android.app.Activity;
+import android.content.DialogInterface;
+import android.support.design.widget.BottomSheetDialog;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.Button;
+import android.widget.EditText;
+
+import com.github.takahirom.multiwindowapplauncher.R;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+import com.github.takahirom.multiwindowapplauncher.catalog.CompactCatalog;
+import com.github.takahirom.multiwindowapplauncher.catalog.LaunchHistory;
+import com.github.takahirom.multiwindowapplauncher.catalog.SortOrder;
+import com.github.takahirom.multiwindowapplauncher.icon.IconLoader;
+import com.jakewharton.rxbinding.widget.RxTextView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Bottom sheet that lists the catalog and filters it as the user types.
+ * The search index is rebuilt off the main thread whenever the catalog changes.
+ * Without a query the list follows the chosen {@link SortOrder}; sorted by label, the most
+ * launched apps are listed first, followed by the whole catalog.
+ * In selection mode a button hands all selected apps over at once, another one saves exactly
+ * two of them as a pair, the first selected being the primary app.
+ */
+public class AppPicker {
+    private static final long SEARCH_DEBOUNCE_MILLIS = 120;
+
+    public interface OnShortcutsRequestedListener {
+        void onShortcutsRequested(List<AppEntry> entries);
+    }
+
+    public interface OnPairRequestedListener {
+        void onPairRequested(AppEntry primary, AppEntry secondary);
+    }
+
+    private final BottomSheetDialog dialog;
+    private final AppPickerAdapter adapter;
+    private final EditText searchText;
+    private final Button createShortcutsButton;
+    private final Button savePairButton;
+    private OnPairRequestedListener pairListener;
+    private final Subscription searchSubscription;
+    private List<AppEntry> entries = Collections.emptyList();
+    private List<String> launchRanking = Collections.emptyList();
+    private SortOrder sortOrder = SortOrder.LABEL;
+    private List<AppEntry> ranked = Collections.emptyList();
+    private AppSearchIndex searchIndex;
+    private int[] matches = new int[0];
+    private CharSequence query = "";
+
+    public AppPicker(Activity activity, IconLoader iconLoader,
+                     AppPickerAdapter.OnAppSelectedListener listener,
+                     final OnShortcutsRequestedListener shortcutsListener) {
+        adapter = new AppPickerAdapter(activity, iconLoader, listener);
+        final View content = activity.getLayoutInflater().inflate(R.layout.dialog_app_picker, null);
+        final RecyclerView recyclerView = (RecyclerView) content.findViewById(R.id.recycler_apps);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setAdapter(adapter);
+        adapter.attachPrefetcher(recyclerView);
+        searchText = (EditText) content.findViewById(R.id.edit_search);
+        searchSubscription = RxTextView.textChanges(searchText)
+                .debounce(SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Action1<CharSequence>() {
+                    @Override
+                    public void call(CharSequence text) {
+                        query = text.toString();
+                        applyQuery();
+                    }
+                });
+        createShortcutsButton = (Button) content.findViewById(R.id.button_create_shortcuts);
+        createShortcutsButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                final List<AppEntry> selected = adapter.getSelectedEntries();
+                adapter.setSelectionMode(false);
+                shortcutsListener.onShortcutsRequested(selected);
+            }
+        });
+        savePairButton = (Button) content.findViewById(R.id.button_save_pair);
+        savePairButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                final List<AppEntry> selected = adapter.getSelectedEntries();
+                adapter.setSelectionMode(false);
+                if (pairListener != null && selected.size() == 2) {
+                    pairListener.onPairRequested(selected.get(0), selected.get(1));
+                }
+            }
+        });
+        adapter.setOnSelectionChangedListener(new AppPickerAdapter.OnSelectionChangedListener() {
+            @Override
+            public void onSelectionChanged(boolean selectionMode, int selectedCount) {
+                createShortcutsButton.setVisibility(selectionMode ? View.VISIBLE : View.GONE);
+                createShortcutsButton.setEnabled(selectedCount > 0);
+                createShortcutsButton.setText("Create " + selectedCount + " shortcuts");
+                savePairButton.setVisibility(selectionMode && pairListener != null ? View.VISIBLE : View.GONE);
+                savePairButton.setEnabled(selectedCount == 2);
+            }
+        });
+        dialog = new BottomSheetDialog(activity);
+        dialog.setContentView(content);
+        dialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
+            @Override
+            public void onDismiss(DialogInterface dialogInterface) {
+                adapter.setSelectionMode(false);
+            }
+        });
+    }
+
+    public void setOnPairRequestedListener(OnPairRequestedListener pairListener) {
+        this.pairListener = pairListener;
+    }
+
+    public void setEntries(final List<AppEntry> newEntries) {
+        if (newEntries == entries) {
+            return;
+        }
+        entries = newEntries;
+        ranked = arrange(newEntries);
+        searchIndex = null;
+        applyQuery();
+        Observable
+                .fromCallable(new Callable<AppSearchIndex>() {
+                    @Override
+                    public AppSearchIndex call() throws Exception {
+                        final List<String> labels = new ArrayList<>(newEntries.size());
+                        final List<String> packageNames = new ArrayList<>(newEntries.size());
+                        for (AppEntry entry : newEntries) {
+                            labels.add(entry.getLabel());
+                            packageNames.add(entry.getComponentName().getPackageName());
+                        }
+                        return AppSearchIndex.build(labels, packageNames);
+                    }
+                })
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Action1<AppSearchIndex>() {
+                    @Override
+                    public void call(AppSearchIndex index) {
+                        if (entries != newEntries) {
+                            return;
+                        }
+                        searchIndex = index;
+                        matches = new int[index.size()];
+                        applyQuery();
+                    }
+                });
+    }
+
+    /**
+     * Sets the entry keys of all launched apps, best first. Keys without an entry are skipped.
+     */
+    public void setLaunchRanking(List<String> keys) {
+        if (keys.equals(launchRanking)) {
+            return;
+        }
+        launchRanking = keys;
+        if (sortOrder == SortOrder.LABEL || sortOrder == SortOrder.LAUNCH_FREQUENCY) {
+            ranked = arrange(entries);
+            applyQuery();
+        }
+    }
+
+    public void setSortOrder(SortOrder order) {
+        if (order == sortOrder) {
+            return;
+        }
+        sortOrder = order;
+        ranked = arrange(entries);
+        if (query.length() == 0) {
+            adapter.submitReordered(ranked);
+        } else {
+            // Search results do not follow the sort order.
+            applyQuery();
+        }
+    }
+
+    /**
+     * Orders the entries for display without sorting: the catalog keeps a permutation for
+     * every order that depends on the entries alone, and the launch ranking is applied in one
+     * pass.
+     */
+    private List<AppEntry> arrange(List<AppEntry> entries) {
+        switch (sortOrder) {
+            case LABEL:
+                return rank(entries, launchRanking.size() > LaunchHistory.TOP_COUNT
+                        ? launchRanking.subList(0, LaunchHistory.TOP_COUNT) : launchRanking);
+            case LAUNCH_FREQUENCY:
+                return rank(entries, launchRanking);
+            default:
+                return CompactCatalog.of(entries).inOrder(sortOrder);
+        }
+    }
+
+    private static List<AppEntry> rank(List<AppEntry> entries, List<String> topKeys) {
+        if (topKeys.isEmpty() || entries.isEmpty()) {
+            return entries;
+        }
+        final Map<String, Integer> ranks = new HashMap<>(topKeys.size() * 2);
+        for (int i = 0; i < topKeys.size(); i++) {
+            ranks.put(topKeys.get(i), i);
+        }
+        final AppEntry[] top = new AppEntry[topKeys.size()];
+        final List<AppEntry> rest = new ArrayList<>(entries.size());
+        for (AppEntry entry : entries) {
+            final Integer rank = ranks.get(entry.getKey());
+            if (rank != null) {
+                top[rank] = entry;
+            } else {
+                rest.add(entry);
+            }
+        }
+        final List<AppEntry> result = new ArrayList<>(entries.size());
+        for (AppEntry entry : top) {
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        result.addAll(rest);
+        return result;
+    }
+
+    public void show() {
+        dialog.show();
+    }
+
+    /**
+     * Shows the sheet and runs {@code onFirstFrame} right before it is drawn for the first time.
+     */
+    public void show(final Runnable onFirstFrame) {
+        dialog.show();
+        final View decorView = dialog.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                onFirstFrame.run();
+                return true;
+            }
+        });
+    }
+
+    public void dismiss() {
+        dialog.dismiss();
+    }
+
+    public void destroy() {
+        searchSubscription.unsubscribe();
+        dialog.dismiss();
+    }
+
+    private void applyQuery() {
+        if (query.length() == 0) {
+            adapter.submit(ranked);
+            return;
+        }
+        if (searchIndex == null) {
+            // The index for the new entries is still being built.
+            return;
+        }
+        final int count = searchIndex.query(query, matches);
+        final List<AppEntry> filtered = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            filtered.add(entries.get(matches[i]));
+        }
+        adapter.submit(filtered);
+    }
+}
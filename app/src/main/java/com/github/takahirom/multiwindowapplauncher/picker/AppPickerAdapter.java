@@ -0,0 +1,299 @@
+package com.github.takahirom.multiwindowapplauncher.picker;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckedTextView;
+
+import com.github.takahirom.multiwindowapplauncher.R;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+import com.github.takahirom.multiwindowapplauncher.icon.IconLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import rx.Observable;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
+
+/**
+ * RecyclerView adapter for the app picker.
+ * Item ids are stable per component and user, and new lists are diffed off the main thread
+ * so catalog changes only touch the rows that actually changed.
+ * A long press switches to selection mode, where taps toggle rows instead of selecting an app.
+ */
+public class AppPickerAdapter extends RecyclerView.Adapter<AppPickerAdapter.ViewHolder> {
+    private static final int PREFETCH_ROWS = 8;
+    private static final Object PAYLOAD_CHECKED = new Object();
+
+    public interface OnAppSelectedListener {
+        void onAppSelected(AppEntry entry);
+    }
+
+    public interface OnSelectionChangedListener {
+        /**
+         * Called when selection mode is entered or left and whenever the selection changes.
+         */
+        void onSelectionChanged(boolean selectionMode, int selectedCount);
+    }
+
+    private final LayoutInflater inflater;
+    private final IconLoader iconLoader;
+    private final int density;
+    private final OnAppSelectedListener listener;
+    private final Map<String, Long> stableIds = new HashMap<>();
+    private final Map<String, AppEntry> selected = new LinkedHashMap<>();
+    private final int checkMarkResId;
+    private OnSelectionChangedListener selectionListener;
+    private boolean selectionMode;
+    private List<AppEntry> items = Collections.emptyList();
+    private int generation;
+
+    public AppPickerAdapter(Context context, IconLoader iconLoader, OnAppSelectedListener listener) {
+        inflater = LayoutInflater.from(context);
+        this.iconLoader = iconLoader;
+        this.listener = listener;
+        density = context.getResources().getDisplayMetrics().densityDpi;
+        final TypedArray a = context.obtainStyledAttributes(new int[]{android.R.attr.listChoiceIndicatorMultiple});
+        checkMarkResId = a.getResourceId(0, 0);
+        a.recycle();
+        setHasStableIds(true);
+    }
+
+    public void setOnSelectionChangedListener(OnSelectionChangedListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * Enters or leaves selection mode. Leaving it clears the selection.
+     */
+    public void setSelectionMode(boolean selectionMode) {
+        if (this.selectionMode == selectionMode) {
+            return;
+        }
+        this.selectionMode = selectionMode;
+        selected.clear();
+        notifyItemRangeChanged(0, items.size());
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Selected entries in the order they were selected, including those hidden by the current
+     * search query.
+     */
+    public List<AppEntry> getSelectedEntries() {
+        return new ArrayList<>(selected.values());
+    }
+
+    private void toggleSelection(AppEntry entry, int position) {
+        if (selected.remove(entry.getKey()) == null) {
+            selected.put(entry.getKey(), entry);
+        }
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, PAYLOAD_CHECKED);
+        }
+        dispatchSelectionChanged();
+    }
+
+    private void dispatchSelectionChanged() {
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectionMode, selected.size());
+        }
+    }
+
+    /**
+     * Replaces the shown entries. The diff against the current list is computed on a background
+     * thread; if another list is submitted meanwhile, only the latest one is applied. Moves are
+     * not detected, since a catalog change keeps the order of the rows that stay.
+     */
+    public void submit(final List<AppEntry> newItems) {
+        if (newItems == items) {
+            return;
+        }
+        final int submitGeneration = ++generation;
+        final List<AppEntry> oldItems = items;
+        if (oldItems.isEmpty()) {
+            items = newItems;
+            notifyDataSetChanged();
+            return;
+        }
+        Observable
+                .fromCallable(new Callable<DiffUtil.DiffResult>() {
+                    @Override
+                    public DiffUtil.DiffResult call() throws Exception {
+                        return DiffUtil.calculateDiff(new EntryDiffCallback(oldItems, newItems), false);
+                    }
+                })
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Action1<DiffUtil.DiffResult>() {
+                    @Override
+                    public void call(DiffUtil.DiffResult diffResult) {
+                        if (submitGeneration != generation) {
+                            return;
+                        }
+                        items = newItems;
+                        diffResult.dispatchUpdatesTo(AppPickerAdapter.this);
+                    }
+                });
+    }
+
+    /**
+     * Shows the same entries in another order. Nearly every row moves, so diffing costs more
+     * than rebinding; the stable ids let the views of the shown rows be reused.
+     */
+    public void submitReordered(List<AppEntry> newItems) {
+        ++generation;
+        items = newItems;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Prefetches icons of the rows just below the viewport while the list is scrolled.
+     */
+    public void attachPrefetcher(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                final LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                final int from = dy >= 0
+                        ? layoutManager.findLastVisibleItemPosition() + 1
+                        : layoutManager.findFirstVisibleItemPosition() - PREFETCH_ROWS;
+                for (int i = Math.max(0, from); i < Math.min(items.size(), from + PREFETCH_ROWS); i++) {
+                    iconLoader.prefetch(items.get(i), density);
+                }
+            }
+        });
+    }
+
+    @Override
+    public long getItemId(int position) {
+        final String key = items.get(position).getKey();
+        Long id = stableIds.get(key);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(key, id);
+        }
+        return id;
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new ViewHolder((CheckedTextView) inflater.inflate(R.layout.item_app, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        final AppEntry entry = items.get(position);
+        holder.entry = entry;
+        holder.label.setText(entry.getLabel());
+        bindChecked(holder);
+        iconLoader.bind(holder.label, entry, density);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position, List<Object> payloads) {
+        // Packed catalogs hand out a new view per call, so compare rows by key.
+        if (payloads.contains(PAYLOAD_CHECKED) && holder.entry != null
+                && holder.entry.getKey().equals(items.get(position).getKey())) {
+            bindChecked(holder);
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private void bindChecked(ViewHolder holder) {
+        holder.label.setCheckMarkDrawable(selectionMode ? checkMarkResId : 0);
+        holder.label.setChecked(selectionMode && selected.containsKey(holder.entry.getKey()));
+    }
+
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        iconLoader.cancel(holder.label);
+        holder.entry = null;
+    }
+
+    class ViewHolder extends RecyclerView.ViewHolder {
+        final CheckedTextView label;
+        AppEntry entry;
+
+        ViewHolder(CheckedTextView itemView) {
+            super(itemView);
+            label = itemView;
+            itemView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    if (entry == null) {
+                        return;
+                    }
+                    if (selectionMode) {
+                        toggleSelection(entry, getAdapterPosition());
+                    } else {
+                        listener.onAppSelected(entry);
+                    }
+                }
+            });
+            itemView.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View view) {
+                    if (entry == null) {
+                        return false;
+                    }
+                    setSelectionMode(true);
+                    toggleSelection(entry, getAdapterPosition());
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static class EntryDiffCallback extends DiffUtil.Callback {
+        private final List<AppEntry> oldItems;
+        private final List<AppEntry> newItems;
+
+        EntryDiffCallback(List<AppEntry> oldItems, List<AppEntry> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldItems.get(oldItemPosition).getKey().equals(newItems.get(newItemPosition).getKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldItems.get(oldItemPosition).isSameAs(newItems.get(newItemPosition));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.takahirom.multiwindowapplauncher.picker;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Prefix index over app labels and package names.
+ * Every word of a label, the whole label, every package name segment and the whole package
+ * name are folded (lower case, accents removed, katakana as hiragana) and kept in one sorted
+ * array, so a query is a binary search plus a scan over the matching range. Queries reuse
+ * internal buffers and do not allocate.
+ */
+public final class AppSearchIndex {
+    private static final char FOLD_TABLE_START = '\u00C0';
+    private static final char FOLD_TABLE_END = '\u024F';
+    private static final char[] FOLD_TABLE = createFoldTable();
+
+    private final int size;
+    private final char[][] tokens;
+    private final int[] tokenEntries;
+    private final int[] matchGenerations;
+    private char[] queryBuffer = new char[32];
+    private int generation;
+
+    private AppSearchIndex(int size, char[][] tokens, int[] tokenEntries) {
+        this.size = size;
+        this.tokens = tokens;
+        this.tokenEntries = tokenEntries;
+        matchGenerations = new int[size];
+    }
+
+    /**
+     * Builds the index. Both lists are indexed by entry position and must have the same size.
+     */
+    public static AppSearchIndex build(List<String> labels, List<String> packageNames) {
+        final List<Token> tokens = new ArrayList<>(labels.size() * 4);
+        for (int i = 0; i < labels.size(); i++) {
+            addTokens(tokens, fold(labels.get(i)), ' ', i);
+            addTokens(tokens, fold(packageNames.get(i)), '.', i);
+        }
+        Collections.sort(tokens, new Comparator<Token>() {
+            @Override
+            public int compare(Token token, Token t1) {
+                return compareChars(token.chars, t1.chars, t1.chars.length);
+            }
+        });
+        final char[][] tokenChars = new char[tokens.size()][];
+        final int[] tokenEntries = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            tokenChars[i] = tokens.get(i).chars;
+            tokenEntries[i] = tokens.get(i).entry;
+        }
+        return new AppSearchIndex(labels.size(), tokenChars, tokenEntries);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the positions of all entries with a word starting with the query into {@code out}
+     * in ascending order and returns how many were written. {@code out} must hold at least
+     * {@link #size()} elements. Must not be called concurrently.
+     */
+    public int query(CharSequence query, int[] out) {
+        final int length = foldQuery(query);
+        if (length == 0) {
+            for (int i = 0; i < size; i++) {
+                out[i] = i;
+            }
+            return size;
+        }
+        generation++;
+        for (int i = lowerBound(length); i < tokens.length; i++) {
+            if (!startsWith(tokens[i], queryBuffer, length)) {
+                break;
+            }
+            matchGenerations[tokenEntries[i]] = generation;
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (matchGenerations[i] == generation) {
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    private int foldQuery(CharSequence query) {
+        if (queryBuffer.length < query.length()) {
+            queryBuffer = new char[query.length() * 2];
+        }
+        int length = 0;
+        for (int i = 0; i < query.length(); i++) {
+            final char c = fold(query.charAt(i));
+            if (length == 0 && Character.isWhitespace(c)) {
+                continue;
+            }
+            queryBuffer[length++] = c;
+        }
+        while (length > 0 && Character.isWhitespace(queryBuffer[length - 1])) {
+            length--;
+        }
+        return length;
+    }
+
+    private int lowerBound(int length) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compareChars(tokens[mid], queryBuffer, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void addTokens(List<Token> tokens, String folded, char separator, int entry) {
+        if (folded.isEmpty()) {
+            return;
+        }
+        tokens.add(new Token(folded.toCharArray(), entry));
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            final boolean boundary = i == folded.length()
+                    || folded.charAt(i) == separator || Character.isWhitespace(folded.charAt(i));
+            if (boundary) {
+                // The first word is already covered by the whole string.
+                if (start > 0) {
+                    tokens.add(new Token(folded.substring(start, i).toCharArray(), entry));
+                }
+                start = -1;
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    private static int compareChars(char[] a, char[] b, int bLength) {
+        final int length = Math.min(a.length, bLength);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] - b[i];
+            }
+        }
+        return a.length - bLength;
+    }
+
+    private static boolean startsWith(char[] token, char[] prefix, int length) {
+        if (token.length < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (token[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String fold(String s) {
+        final char[] chars = new char[s.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(s.charAt(i));
+        }
+        return new String(chars).trim();
+    }
+
+    static char fold(char c) {
+        if (c >= FOLD_TABLE_START && c <= FOLD_TABLE_END) {
+            return FOLD_TABLE[c - FOLD_TABLE_START];
+        }
+        if (c >= '\u30A1' && c <= '\u30F6') {
+            // Katakana to hiragana.
+            return (char) (c - 0x60);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Maps accented Latin letters to their lower case base letter.
+     */
+    private static char[] createFoldTable() {
+        final char[] table = new char[FOLD_TABLE_END - FOLD_TABLE_START + 1];
+        for (char c = FOLD_TABLE_START; c <= FOLD_TABLE_END; c++) {
+            final String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            table[c - FOLD_TABLE_START] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        return table;
+    }
+
+    private static class Token {
+        final char[] chars;
+        final int entry;
+
+        Token(char[] chars, int entry) {
+            this.chars = chars;
+            this.entry = entry;
+        }
+    }
+}
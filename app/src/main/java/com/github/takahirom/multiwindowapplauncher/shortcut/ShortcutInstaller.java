@@ -0,0 +1,265 @@
+package com.github.takahirom.multiwindowapplauncher.shortcut;
+
+import android.app.ActivityManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.github.takahirom.multiwindowapplauncher.MultiWindowAppLaunchActivity;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppCatalog;
+import com.github.takahirom.multiwindowapplauncher.catalog.AppEntry;
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentKey;
+import com.github.takahirom.multiwindowapplauncher.catalog.ComponentValidator;
+import com.github.takahirom.multiwindowapplauncher.icon.IconCache;
+import com.github.takahirom.multiwindowapplauncher.icon.ShortcutIconRenderer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asks the launcher to add "MW" shortcuts that open apps through the multi-window
+ * trampoline. Label and icon lookups, icon rendering and the broadcasts all run on a
+ * background thread.
+ * Activities known to the catalog get the same label and (badged) icon as in the picker,
+ * taken from {@link IconCache} at the launcher's icon density; anything else falls back to
+ * the application icon and label.
+ * Targets that are no longer installed or enabled are rejected up front, all of them checked
+ * in one pass by {@link ComponentValidator}.
+ */
+public class ShortcutInstaller {
+    private static final String ACTION_INSTALL_SHORTCUT = "com.android.launcher.action.INSTALL_SHORTCUT";
+    /** Gap between two INSTALL_SHORTCUT broadcasts of a bulk job. */
+    private static final long BROADCAST_INTERVAL_MILLIS = 250;
+
+    public interface Callback {
+        void onShortcutInstalled(ComponentName componentName, boolean success);
+    }
+
+    public interface BulkCallback {
+        void onShortcutsInstalled(List<Result> results);
+    }
+
+    /**
+     * Outcome of one shortcut of a bulk job.
+     */
+    public static class Result {
+        private final ComponentName componentName;
+        private final CharSequence label;
+        private final String error;
+
+        Result(ComponentName componentName, CharSequence label, String error) {
+            this.componentName = componentName;
+            this.label = label;
+            this.error = error;
+        }
+
+        public ComponentName getComponentName() {
+            return componentName;
+        }
+
+        /**
+         * The shortcut name, or the component name when the package could not be found.
+         */
+        public CharSequence getLabel() {
+            return label != null ? label : componentName.flattenToShortString();
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private static class Request {
+        final ComponentName componentName;
+        final long userSerial;
+        final AppEntry entry;
+        final ComponentKey key;
+
+        Request(ComponentName componentName, long userSerial, AppEntry entry) {
+            this.componentName = componentName;
+            this.userSerial = userSerial;
+            this.entry = entry;
+            key = new ComponentKey(componentName, userSerial);
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final PackageManager pm;
+    private final int iconDensity;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ShortcutInstaller(Context context) {
+        this.context = context.getApplicationContext();
+        pm = this.context.getPackageManager();
+        iconDensity = ((ActivityManager) this.context.getSystemService(Context.ACTIVITY_SERVICE))
+                .getLauncherLargeIconDensity();
+    }
+
+    /**
+     * Installs the shortcut of the activity in the given profile in the background and reports
+     * the result on the main thread.
+     */
+    public void install(final ComponentName componentName, final long userSerial, final Callback callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final AppEntry entry = AppCatalog.getInstance(context).findEntry(componentName, userSerial);
+                new BulkJob(Collections.singletonList(new Request(componentName, userSerial, entry)),
+                        new BulkCallback() {
+                            @Override
+                            public void onShortcutsInstalled(List<Result> results) {
+                                callback.onShortcutInstalled(componentName, results.get(0).isSuccess());
+                            }
+                        }).run();
+            }
+        });
+    }
+
+    /**
+     * Installs shortcuts for all entries as one background job and reports one result per
+     * distinct entry, in order, on the main thread. Icons come from the shared icon cache or
+     * the shortcut icon renderer, and the broadcasts are spaced out so the launcher is not
+     * flooded.
+     */
+    public void installAll(final Collection<AppEntry> entries, final BulkCallback callback) {
+        final Map<String, Request> distinct = new LinkedHashMap<>();
+        for (AppEntry entry : entries) {
+            distinct.put(entry.getKey(), new Request(entry.getComponentName(), entry.getUserSerial(), entry));
+        }
+        executor.execute(new BulkJob(new ArrayList<>(distinct.values()), callback));
+    }
+
+    /**
+     * Sends the broadcasts of one job on the executor, one request per step. After each
+     * broadcast the next step is posted back to the executor with a delay instead of sleeping,
+     * so other jobs run in between.
+     */
+    private class BulkJob implements Runnable {
+        private final List<Request> requests;
+        private final BulkCallback callback;
+        private final List<Result> results;
+        private Set<ComponentKey> enabled;
+        private int next;
+
+        private final Runnable resume = new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(BulkJob.this);
+            }
+        };
+
+        BulkJob(List<Request> requests, BulkCallback callback) {
+            this.requests = requests;
+            this.callback = callback;
+            results = new ArrayList<>(requests.size());
+        }
+
+        @Override
+        public void run() {
+            if (enabled == null) {
+                final List<ComponentKey> keys = new ArrayList<>(requests.size());
+                for (Request request : requests) {
+                    keys.add(request.key);
+                }
+                enabled = ComponentValidator.getInstance(context).getEnabled(keys);
+            }
+            while (next < requests.size()) {
+                final Request request = requests.get(next++);
+                final boolean broadcast = installOne(request);
+                if (broadcast && next < requests.size()) {
+                    mainHandler.postDelayed(resume, BROADCAST_INTERVAL_MILLIS);
+                    return;
+                }
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onShortcutsInstalled(results);
+                }
+            });
+        }
+
+        /**
+         * Adds the result of the request and returns whether a broadcast was sent.
+         */
+        private boolean installOne(Request request) {
+            String label = request.entry != null ? "MW " + request.entry.getLabel() : null;
+            if (!enabled.contains(request.key)) {
+                results.add(new Result(request.componentName, label, "Disabled or not installed"));
+                return false;
+            }
+            Bitmap icon = request.entry != null
+                    ? IconCache.getInstance(context).getIcon(request.entry, iconDensity) : null;
+            if (icon == null) {
+                // Sent right away: a rendered icon is only valid until the renderer reuses its
+                // bitmap for other packages.
+                final PackageShortcut packageShortcut = loadPackage(request.componentName.getPackageName());
+                if (packageShortcut == null) {
+                    results.add(new Result(request.componentName, label, "Not installed"));
+                    return false;
+                }
+                label = label != null ? label : packageShortcut.label;
+                icon = packageShortcut.icon;
+            }
+            String error = null;
+            try {
+                context.sendBroadcast(createAddIntent(request, label, icon));
+            } catch (RuntimeException e) {
+                // The icon can exceed the binder transaction limit.
+                error = e.getClass().getSimpleName();
+            }
+            results.add(new Result(request.componentName, label, error));
+            return true;
+        }
+    }
+
+    private PackageShortcut loadPackage(String packageName) {
+        final PackageInfo packageInfo;
+        try {
+            packageInfo = pm.getPackageInfo(packageName, 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+        final Bitmap icon = ShortcutIconRenderer.getInstance(context).render(packageInfo);
+        return new PackageShortcut("MW " + pm.getApplicationLabel(packageInfo.applicationInfo), icon);
+    }
+
+    private Intent createAddIntent(Request request, String label, Bitmap icon) {
+        final Intent launchIntent = MultiWindowAppLaunchActivity.getLaunchIntent(context, false, request.componentName);
+        launchIntent.putExtra(MultiWindowAppLaunchActivity.EXTRA_USER_SERIAL, request.userSerial);
+        final Intent addIntent = new Intent(ACTION_INSTALL_SHORTCUT);
+        addIntent.putExtra(Intent.EXTRA_SHORTCUT_INTENT, launchIntent);
+        addIntent.putExtra(Intent.EXTRA_SHORTCUT_NAME, label);
+        addIntent.putExtra(Intent.EXTRA_SHORTCUT_ICON, icon);
+//        addIntent.putExtra("duplicate", false);  //may it's already there so don't duplicate
+        return addIntent;
+    }
+
+    private static class PackageShortcut {
+        final String label;
+        final Bitmap icon;
+
+        PackageShortcut(String label, Bitmap icon) {
+            this.label = label;
+            this.icon = icon;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import android.content.ComponentName;
+
+import com.github.takahirom.multiwindowapplauncher.compat.UserHandleCompat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class CompactCatalogTest {
+    private static final long[] SERIALS = {0, 10, 11};
+
+    private static AppEntry randomEntry(Random random, int range) {
+        // Profiles are told apart by serial, so every entry can share the test's user.
+        return new AppEntry(
+                new ComponentName("com.example.app" + random.nextInt(range), "Activity" + random.nextInt(5)),
+                UserHandleCompat.myUserHandle(), SERIALS[random.nextInt(SERIALS.length)],
+                "App " + random.nextInt(range), random.nextInt(5), random.nextInt(5), null);
+    }
+
+    private static List<String> describe(List<AppEntry> entries) {
+        final List<String> result = new ArrayList<>(entries.size());
+        for (AppEntry entry : entries) {
+            result.add(entry.getKey() + " " + entry.getLabel()
+                    + " " + entry.getFirstInstallTime() + " " + entry.getLastUpdateTime());
+        }
+        return result;
+    }
+
+    @Test
+    public void withChanges_isTheSameAsAFullBuild() throws Exception {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            final int range = 1 + random.nextInt(60);
+            final Map<String, AppEntry> unique = new LinkedHashMap<>();
+            for (int i = 0; i < range; i++) {
+                final AppEntry entry = randomEntry(random, range);
+                unique.put(entry.getKey(), entry);
+            }
+            final List<AppEntry> oldEntries = new ArrayList<>(unique.values());
+            Collections.sort(oldEntries, AppCatalogLoader.LABEL_COMPARATOR);
+
+            final BitSet removed = new BitSet();
+            final List<AppEntry> newEntries = new ArrayList<>();
+            final Set<String> keys = new HashSet<>();
+            for (int i = 0; i < oldEntries.size(); i++) {
+                if (random.nextInt(4) == 0) {
+                    removed.set(i);
+                } else {
+                    newEntries.add(oldEntries.get(i));
+                    keys.add(oldEntries.get(i).getKey());
+                }
+            }
+            // Added entries may bring new strings, which makes the catalog rebuild its pool.
+            final List<AppEntry> added = new ArrayList<>();
+            final int addedCount = random.nextInt(8);
+            for (int i = 0; i < addedCount; i++) {
+                final AppEntry entry = randomEntry(random, 2 * range + 5);
+                if (keys.add(entry.getKey())) {
+                    added.add(entry);
+                }
+            }
+            Collections.sort(added, AppCatalogLoader.LABEL_COMPARATOR);
+            newEntries.addAll(added);
+            Collections.sort(newEntries, AppCatalogLoader.LABEL_COMPARATOR);
+
+            final CompactCatalog changed = CompactCatalog.of(oldEntries).withChanges(removed, added);
+            final CompactCatalog built = CompactCatalog.of(newEntries);
+            final String message = "iteration " + iteration;
+            assertEquals(message, describe(built), describe(changed));
+            for (SortOrder order : SortOrder.values()) {
+                assertEquals(message + " " + order, describe(built.inOrder(order)), describe(changed.inOrder(order)));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class EnabledComponentTableTest {
+    private static Set<String> classNames(String... names) {
+        final Set<String> set = new HashSet<>();
+        Collections.addAll(set, names);
+        return set;
+    }
+
+    @Test
+    public void get_returnsTheSetOfThePackageInTheProfile() throws Exception {
+        final EnabledComponentTable table = new EnabledComponentTable();
+        assertTrue(table.put("com.example.mail", 0, classNames(".Inbox", ".Compose"), table.getGeneration()));
+        assertEquals(classNames(".Inbox", ".Compose"), table.get("com.example.mail", 0));
+        assertNull(table.get("com.example.mail", 10));
+        assertNull(table.get("com.example.camera", 0));
+    }
+
+    @Test
+    public void invalidate_dropsOnlyThatPackageInThatProfile() throws Exception {
+        final EnabledComponentTable table = new EnabledComponentTable();
+        table.put("com.example.mail", 0, classNames(".Inbox"), table.getGeneration());
+        table.put("com.example.mail", 10, classNames(".Inbox"), table.getGeneration());
+        table.put("com.example.camera", 0, classNames(".Camera"), table.getGeneration());
+        table.invalidate("com.example.mail", 0);
+        assertNull(table.get("com.example.mail", 0));
+        assertNotNull(table.get("com.example.mail", 10));
+        assertNotNull(table.get("com.example.camera", 0));
+        table.invalidateAll();
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void put_ignoresAQueryThatRacedWithAnInvalidation() throws Exception {
+        final EnabledComponentTable table = new EnabledComponentTable();
+        final int generation = table.getGeneration();
+        table.invalidate("com.example.mail", 0);
+        assertFalse(table.put("com.example.mail", 0, classNames(".Inbox"), generation));
+        assertNull(table.get("com.example.mail", 0));
+    }
+
+    @Test
+    public void emptySet_meansNothingIsEnabled() throws Exception {
+        final EnabledComponentTable table = new EnabledComponentTable();
+        table.put("com.example.mail", 0, Collections.<String>emptySet(), table.getGeneration());
+        assertTrue(table.get("com.example.mail", 0).isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FrecencyTableTest {
+    private static final long HALF_LIFE = 1000;
+
+    @Test
+    public void score_halvesEveryHalfLife() throws Exception {
+        final FrecencyTable table = new FrecencyTable(HALF_LIFE, 10);
+        table.record("a", 0);
+        table.record("a", 0);
+        assertEquals(2, table.getScore("a", 0), 1e-9);
+        assertEquals(1, table.getScore("a", HALF_LIFE), 1e-9);
+        assertEquals(0, table.getScore("b", 0), 1e-9);
+    }
+
+    @Test
+    public void getTop_weighsFrequencyAgainstRecency() throws Exception {
+        final FrecencyTable table = new FrecencyTable(HALF_LIFE, 10);
+        for (int i = 0; i < 4; i++) {
+            table.record("often", 0);
+        }
+        table.record("recent", 2 * HALF_LIFE);
+        table.record("old", 0);
+        // 4 launches two half-lives ago tie with one launch now, the name breaks the tie.
+        assertEquals(Arrays.asList("often", "recent", "old"), table.getTop(10, 2 * HALF_LIFE));
+        table.record("recent", 2 * HALF_LIFE);
+        assertEquals(Arrays.asList("recent", "often"), table.getTop(2, 3 * HALF_LIFE));
+    }
+
+    @Test
+    public void record_evictsTheWorstKeyWhenFull() throws Exception {
+        final FrecencyTable table = new FrecencyTable(HALF_LIFE, 2);
+        table.record("a", 0);
+        table.record("a", 0);
+        table.record("b", 0);
+        table.record("c", 0);
+        assertEquals(2, table.size());
+        assertEquals(Arrays.asList("a", "c"), table.getTop(10, 0));
+    }
+
+    @Test
+    public void writeTo_roundTrips() throws Exception {
+        final FrecencyTable table = new FrecencyTable(HALF_LIFE, 10);
+        table.record("a", 0);
+        table.record("b", 500);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.writeTo(new DataOutputStream(bytes));
+        final FrecencyTable read = new FrecencyTable(HALF_LIFE, 10);
+        read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(table.getTop(10, 1000), read.getTop(10, 1000));
+        assertEquals(table.getScore("a", 1000), read.getScore("a", 1000), 1e-9);
+    }
+}
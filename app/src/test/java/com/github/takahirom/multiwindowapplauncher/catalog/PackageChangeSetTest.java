@@ -0,0 +1,30 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.*;
+
+public class PackageChangeSetTest {
+    @Test
+    public void lastEventOfAPackageWins() throws Exception {
+        final PackageChangeSet changes = new PackageChangeSet();
+        changes.update("a", "b");
+        changes.remove("b", "c");
+        changes.update("c");
+        changes.update("a");
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "c")), changes.getUpdated());
+        assertEquals(Collections.singleton("b"), changes.getRemoved());
+    }
+
+    @Test
+    public void isEmpty_untilAnEventArrives() throws Exception {
+        final PackageChangeSet changes = new PackageChangeSet();
+        assertTrue(changes.isEmpty());
+        changes.remove("a");
+        assertFalse(changes.isEmpty());
+    }
+}
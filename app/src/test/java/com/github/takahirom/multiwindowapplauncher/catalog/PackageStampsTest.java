@@ -0,0 +1,36 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PackageStampsTest {
+    @Test
+    public void lookups_returnTheStampsOfThePackage() throws Exception {
+        final PackageStamps stamps = new PackageStamps.Builder(2)
+                .put("com.example.mail", 100, 300)
+                .put("com.example.camera", 200, 200)
+                .build();
+        assertEquals(2, stamps.size());
+        assertEquals(100, stamps.getFirstInstallTime("com.example.mail"));
+        assertEquals(300, stamps.getLastUpdateTime("com.example.mail"));
+        assertEquals(0, stamps.getFirstInstallTime("com.example.clock"));
+        assertEquals(0, stamps.getLastUpdateTime("com.example.clock"));
+    }
+
+    @Test
+    public void isStale_unlessTheUpdateStampMatches() throws Exception {
+        final PackageStamps stamps = new PackageStamps.Builder(1)
+                .put("com.example.mail", 100, 300)
+                .build();
+        assertFalse(stamps.isStale("com.example.mail", 300));
+        assertTrue(stamps.isStale("com.example.mail", 100));
+        assertTrue(stamps.isStale("com.example.mail", 0));
+        assertTrue(stamps.isStale("com.example.clock", 300));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_rejectsDuplicates() throws Exception {
+        new PackageStamps.Builder(2).put("com.example.mail", 1, 1).put("com.example.mail", 2, 2);
+    }
+}
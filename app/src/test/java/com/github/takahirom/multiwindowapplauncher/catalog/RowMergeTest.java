@@ -0,0 +1,197 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RowMergeTest {
+    /** A row of the table under test: sorted by label, then id, like the catalog's label order. */
+    private static class Row {
+        final int id;
+        final int label;
+        final int packageId;
+        final long installTime;
+
+        Row(int id, int label, int packageId, long installTime) {
+            this.id = id;
+            this.label = label;
+            this.packageId = packageId;
+            this.installTime = installTime;
+        }
+    }
+
+    private static final Comparator<Row> LABEL_ORDER = new Comparator<Row>() {
+        @Override
+        public int compare(Row a, Row b) {
+            final int result = Integer.compare(a.label, b.label);
+            return result != 0 ? result : Integer.compare(a.id, b.id);
+        }
+    };
+
+    /** Package ascending, ties by row. */
+    private static RowMerge.RowOrder byPackage(final int[] packageIds) {
+        return new RowMerge.RowOrder() {
+            @Override
+            public int compare(int a, int b) {
+                final int result = Integer.compare(packageIds[a], packageIds[b]);
+                return result != 0 ? result : Integer.compare(a, b);
+            }
+        };
+    }
+
+    /** Newest first, ties by row. */
+    private static RowMerge.RowOrder byNewest(final long[] installTimes) {
+        return new RowMerge.RowOrder() {
+            @Override
+            public int compare(int a, int b) {
+                final int result = Long.compare(installTimes[b], installTimes[a]);
+                return result != 0 ? result : Integer.compare(a, b);
+            }
+        };
+    }
+
+    private static int[] sortRows(int size, final RowMerge.RowOrder order) {
+        final Integer[] rows = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        Arrays.sort(rows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return order.compare(a, b);
+            }
+        });
+        final int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = rows[i];
+        }
+        return result;
+    }
+
+    private static int[] ids(List<Row> rows) {
+        final int[] result = new int[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rows.get(i).id;
+        }
+        return result;
+    }
+
+    private static int[] packageIds(List<Row> rows) {
+        final int[] result = new int[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rows.get(i).packageId;
+        }
+        return result;
+    }
+
+    private static long[] installTimes(List<Row> rows) {
+        final long[] result = new long[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rows.get(i).installTime;
+        }
+        return result;
+    }
+
+    @Test
+    public void merge_removesAndInsertsInPlace() throws Exception {
+        final BitSet removed = new BitSet();
+        removed.set(1);
+        // Old rows 0, 1, 2; insert one before row 0, one before row 2 and one at the end.
+        final RowMerge merge = new RowMerge(3, removed, new int[]{0, 2, 3});
+        assertEquals(5, merge.size());
+        assertArrayEquals(new int[]{-10, 0, -20, 2, -30},
+                merge.merge(new int[]{0, 1, 2}, new int[]{-10, -20, -30}));
+    }
+
+    @Test
+    public void mergePermutation_insertsAddedRowsInOrder() throws Exception {
+        final BitSet removed = new BitSet();
+        removed.set(1);
+        // Old rows 0, 1, 2 become rows 1, -, 3; rows 0, 2 and 4 are added.
+        final RowMerge merge = new RowMerge(3, removed, new int[]{0, 2, 3});
+        final int[] values = {30, 50, 10, 20, 40};
+        final RowMerge.RowOrder byValue = new RowMerge.RowOrder() {
+            @Override
+            public int compare(int a, int b) {
+                return Integer.compare(values[a], values[b]);
+            }
+        };
+        // Old rows by value: 2 (20), 0 (50), 1 removed.
+        assertArrayEquals(new int[]{2, 3, 0, 4, 1}, merge.mergePermutation(new int[]{2, 1, 0}, byValue));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsDecreasingInsertionPoints() throws Exception {
+        new RowMerge(3, new BitSet(), new int[]{2, 1});
+    }
+
+    @Test
+    public void remap_mapsEveryId() throws Exception {
+        assertArrayEquals(new int[]{5, 7, 5}, RowMerge.remap(new int[]{0, 1, 0}, new int[]{5, 7}));
+    }
+
+    @Test
+    public void mergeIsTheSameAsAFullRebuild() throws Exception {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            final int oldSize = random.nextInt(60);
+            int nextId = 0;
+            final List<Row> oldRows = new ArrayList<>();
+            for (int i = 0; i < oldSize; i++) {
+                oldRows.add(new Row(nextId++, random.nextInt(oldSize + 1), random.nextInt(10), random.nextInt(5)));
+            }
+            Collections.sort(oldRows, LABEL_ORDER);
+            final BitSet removed = new BitSet();
+            final List<Row> expectedRows = new ArrayList<>();
+            for (int i = 0; i < oldSize; i++) {
+                if (random.nextInt(4) == 0) {
+                    removed.set(i);
+                } else {
+                    expectedRows.add(oldRows.get(i));
+                }
+            }
+            final List<Row> addedRows = new ArrayList<>();
+            final int addedCount = random.nextInt(8);
+            for (int i = 0; i < addedCount; i++) {
+                addedRows.add(new Row(nextId++, random.nextInt(oldSize + 1), random.nextInt(10), random.nextInt(5)));
+            }
+            Collections.sort(addedRows, LABEL_ORDER);
+            expectedRows.addAll(addedRows);
+            Collections.sort(expectedRows, LABEL_ORDER);
+
+            // Where each added row goes among the old rows, as CompactCatalog searches it.
+            final int[] insertAt = new int[addedCount];
+            for (int i = 0; i < addedCount; i++) {
+                int position = 0;
+                while (position < oldSize && LABEL_ORDER.compare(oldRows.get(position), addedRows.get(i)) < 0) {
+                    position++;
+                }
+                insertAt[i] = position;
+            }
+
+            final RowMerge merge = new RowMerge(oldSize, removed, insertAt);
+            final String message = "iteration " + iteration;
+            assertEquals(message, expectedRows.size(), merge.size());
+            assertArrayEquals(message, ids(expectedRows), merge.merge(ids(oldRows), ids(addedRows)));
+            final int[] packageIds = merge.merge(packageIds(oldRows), packageIds(addedRows));
+            final long[] installTimes = merge.merge(installTimes(oldRows), installTimes(addedRows));
+            assertArrayEquals(message, packageIds(expectedRows), packageIds);
+            assertArrayEquals(message, installTimes(expectedRows), installTimes);
+
+            assertArrayEquals(message,
+                    sortRows(merge.size(), byPackage(packageIds)),
+                    merge.mergePermutation(sortRows(oldSize, byPackage(packageIds(oldRows))), byPackage(packageIds)));
+            assertArrayEquals(message,
+                    sortRows(merge.size(), byNewest(installTimes)),
+                    merge.mergePermutation(sortRows(oldSize, byNewest(installTimes(oldRows))), byNewest(installTimes)));
+        }
+    }
+}
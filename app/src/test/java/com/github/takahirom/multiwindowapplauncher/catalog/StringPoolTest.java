@@ -0,0 +1,38 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StringPoolTest {
+    @Test
+    public void build_keepsEachStringOnce() throws Exception {
+        final StringPool pool = new StringPool.Builder()
+                .add("com.example.mail")
+                .add("Mail")
+                .add("com.example.mail")
+                .add("Camera")
+                .build();
+        assertEquals(3, pool.size());
+        for (String string : new String[]{"com.example.mail", "Mail", "Camera"}) {
+            assertEquals(string, pool.get(pool.indexOf(string)));
+        }
+        assertEquals(-1, pool.indexOf("Clock"));
+    }
+
+    @Test
+    public void indexOf_ofEmptyPool() throws Exception {
+        assertEquals(-1, new StringPool.Builder().build().indexOf("Mail"));
+    }
+
+    @Test
+    public void indicesIn_mapsEachStringToItsIndexInTheSuperset() throws Exception {
+        final StringPool pool = new StringPool.Builder().add("Camera").add("Mail").build();
+        final StringPool superset = new StringPool.Builder()
+                .add("Mail").add("Clock").add("Camera").add("Browser").build();
+        final int[] indices = pool.indicesIn(superset);
+        assertEquals(2, indices.length);
+        assertEquals("Camera", superset.get(indices[pool.indexOf("Camera")]));
+        assertEquals("Mail", superset.get(indices[pool.indexOf("Mail")]));
+    }
+}
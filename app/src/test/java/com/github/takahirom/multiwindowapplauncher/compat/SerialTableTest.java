@@ -0,0 +1,30 @@
+package com.github.takahirom.multiwindowapplauncher.compat;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SerialTableTest {
+    @Test
+    public void lookups_workInBothDirections() throws Exception {
+        final SerialTable<String> table = new SerialTable<>(
+                new long[]{30, 0, 10}, new Object[]{"work", "owner", "clone"});
+        assertEquals(3, table.size());
+        assertEquals("owner", table.getUser(0));
+        assertEquals("clone", table.getUser(10));
+        assertEquals("work", table.getUser(30));
+        assertNull(table.getUser(20));
+        assertEquals(30, table.getSerial("work", -1));
+        assertEquals(30, table.getSerial(new String("work"), -1));
+        assertEquals(-1, table.getSerial("guest", -1));
+        assertEquals(-1, table.getSerial(null, -1));
+        assertEquals(Arrays.asList("owner", "clone", "work"), table.getUsers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsMismatchedArrays() throws Exception {
+        new SerialTable<>(new long[]{0}, new Object[0]);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.takahirom.multiwindowapplauncher.launch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketIndex_isMonotonic() throws Exception {
+        int previous = -1;
+        for (long micros = 0; micros < 1 << 20; micros += 7) {
+            final int index = LatencyHistogram.bucketIndex(micros);
+            assertTrue(index >= previous);
+            assertTrue(micros <= LatencyHistogram.bucketUpperBound(index));
+            previous = index;
+        }
+    }
+
+    @Test
+    public void getPercentile_isWithinBucketPrecision() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean());
+        assertEquals(1000000, histogram.getMax());
+        assertWithin(500000, histogram.getPercentile(50));
+        assertWithin(950000, histogram.getPercentile(95));
+        assertWithin(990000, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void getPercentile_empty() throws Exception {
+        assertEquals(0, new LatencyHistogram().getPercentile(99));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected);
+        assertTrue(actual <= expected * 1.125);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.takahirom.multiwindowapplauncher.picker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AppSearchIndexTest {
+    private AppSearchIndex index;
+    private int[] out;
+
+    @Before
+    public void setUp() throws Exception {
+        index = AppSearchIndex.build(
+                Arrays.asList("Google Maps", "Café Lounge", "カメラ", "Gmail"),
+                Arrays.asList("com.google.android.apps.maps", "org.cafe", "jp.camera", "com.google.android.gm"));
+        out = new int[index.size()];
+    }
+
+    @Test
+    public void query_matchesWordPrefixes() throws Exception {
+        assertMatches("g", 0, 3);
+        assertMatches("ma", 0);
+        assertMatches("google m", 0);
+    }
+
+    @Test
+    public void query_matchesPackageSegments() throws Exception {
+        assertMatches("android", 0, 3);
+        assertMatches("camera", 2);
+    }
+
+    @Test
+    public void query_foldsAccentsAndKana() throws Exception {
+        assertMatches("CAFE", 1);
+        assertMatches("かめ", 2);
+    }
+
+    @Test
+    public void query_blankReturnsAll() throws Exception {
+        assertMatches("  ", 0, 1, 2, 3);
+    }
+
+    @Test
+    public void query_noMatch() throws Exception {
+        assertMatches("xyz");
+    }
+
+    private void assertMatches(String query, int... expected) {
+        final int count = index.query(query, out);
+        assertArrayEquals(expected, Arrays.copyOf(out, count));
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+/**
+ * Pure Java stand-in for {@code LauncherActivityInfoCompat}. The label has to be loaded from
+ * {@link FakeResources} and is memoized by {@link #getLabel()} the same way the real class
+ * does it.
+ */
+public final class FakeActivityInfo {
+    private final String packageName;
+    private final String className;
+    private final FakeUserHandleCompat user;
+    private final long serialNumber;
+    private final FakeResources resources;
+    private final int labelRes;
+    private volatile CharSequence label;
+
+    FakeActivityInfo(String packageName, String className, FakeUserHandleCompat user,
+                     long serialNumber, FakeResources resources, int labelRes) {
+        this.packageName = packageName;
+        this.className = className;
+        this.user = user;
+        this.serialNumber = serialNumber;
+        this.resources = resources;
+        this.labelRes = labelRes;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public FakeUserHandleCompat getUser() {
+        return user;
+    }
+
+    public long getSerialNumber() {
+        return serialNumber;
+    }
+
+    /**
+     * Same key format as {@code AppEntry.getKey()}.
+     */
+    public String getKey() {
+        return packageName + "/" + className + "#" + serialNumber;
+    }
+
+    public CharSequence getLabel() {
+        CharSequence label = this.label;
+        if (label == null) {
+            label = loadLabel();
+            this.label = label;
+        }
+        return label;
+    }
+
+    public CharSequence loadLabel() {
+        return resources.getText(labelRes);
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds reproducible catalogs of fake activities. Labels mix case, accented Latin and
+ * Japanese so that locale-aware comparison does real work.
+ */
+public final class FakeCatalog {
+    private static final String[] SYLLABLES = {
+            "ca", "me", "ra", "Ma", "ps", "Ch", "ro", "me", "Fi", "le", "s", "Ph", "o", "to", "s",
+            "\u00c9", "t\u00e9", "\u00fc", "ber", "No", "tes", "\u30ab", "\u30e1", "\u30e9",
+            "\u3082", "\u3058", "Ke", "ep", " ", "Pl", "ay", "Wa", "ll", "et"
+    };
+
+    private FakeCatalog() {
+    }
+
+    /**
+     * Creates {@code size} activities spread over {@code profiles} users. Serial numbers of the
+     * users are 0, 10, 20... so they are not dense.
+     */
+    public static List<FakeActivityInfo> create(int size, int profiles) {
+        final Random random = new Random(42);
+        final String[] labels = new String[size];
+        for (int i = 0; i < size; i++) {
+            final StringBuilder label = new StringBuilder();
+            final int syllables = 2 + random.nextInt(5);
+            for (int s = 0; s < syllables; s++) {
+                label.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            labels[i] = label.toString();
+        }
+        final FakeResources resources = new FakeResources(labels);
+        final List<FakeActivityInfo> infos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int profile = i % profiles;
+            infos.add(new FakeActivityInfo("com.example.app" + i / 2, "com.example.app.Activity" + i % 2,
+                    FakeUserHandleCompat.fromUser(new FakeUserHandle(profile)), profile * 10L,
+                    resources, i));
+        }
+        return infos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory tier of {@code IconCache}: an access ordered map bounded by the byte size of the
+ * icons, like {@code android.util.LruCache}. A miss "renders" the icon into a new pixel array.
+ */
+public final class FakeIconCache {
+    private final LinkedHashMap<String, int[]> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxBytes;
+    private final int iconSize;
+    private int bytes;
+
+    public FakeIconCache(int maxBytes, int iconSize) {
+        this.maxBytes = maxBytes;
+        this.iconSize = iconSize;
+    }
+
+    public synchronized int[] getIcon(FakeActivityInfo info, int density) {
+        final String key = info.getKey() + "@" + density;
+        int[] icon = map.get(key);
+        if (icon != null) {
+            return icon;
+        }
+        icon = render(info);
+        map.put(key, icon);
+        bytes += icon.length * 4;
+        trim();
+        return icon;
+    }
+
+    private int[] render(FakeActivityInfo info) {
+        final int[] pixels = new int[iconSize * iconSize];
+        final int color = info.getKey().hashCode();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = color ^ i;
+        }
+        return pixels;
+    }
+
+    private void trim() {
+        final Iterator<Map.Entry<String, int[]>> iterator = map.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().getValue().length * 4;
+            iterator.remove();
+        }
+    }
+}
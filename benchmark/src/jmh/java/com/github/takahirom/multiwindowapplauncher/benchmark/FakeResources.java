@@ -0,0 +1,24 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Stand-in for the label lookup in another package's resources. The real lookup is an IPC
+ * plus a string pool read; this one only copies the string out of a table, so the cached vs
+ * uncached numbers are a lower bound of the difference on a device.
+ */
+public final class FakeResources {
+    private final char[][] strings;
+
+    FakeResources(String[] strings) {
+        this.strings = new char[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            this.strings[i] = strings[i].toCharArray();
+        }
+    }
+
+    public CharSequence getText(int id) {
+        final char[] chars = strings[id];
+        return new StringBuilder(chars.length).append(Arrays.copyOf(chars, chars.length));
+    }
+}
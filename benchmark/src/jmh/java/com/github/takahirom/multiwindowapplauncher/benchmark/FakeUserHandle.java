@@ -0,0 +1,22 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+/**
+ * Stand-in for {@code android.os.UserHandle}: a user id with value equality.
+ */
+public final class FakeUserHandle {
+    private final int id;
+
+    public FakeUserHandle(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FakeUserHandle && ((FakeUserHandle) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+}
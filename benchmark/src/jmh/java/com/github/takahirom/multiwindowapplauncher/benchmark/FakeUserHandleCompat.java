@@ -0,0 +1,77 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Mirrors {@code UserHandleCompat}: a wrapper that delegates equals and hashCode to the wrapped
+ * handle. {@link #intern} is the interning the real class does, {@link #fromUser} the
+ * allocation per call it did before.
+ */
+public final class FakeUserHandleCompat {
+    private static final Object internLock = new Object();
+    private static volatile FakeUserHandleCompat[] interned = new FakeUserHandleCompat[0];
+
+    private final FakeUserHandle user;
+
+    private FakeUserHandleCompat(FakeUserHandle user) {
+        this.user = user;
+    }
+
+    public static FakeUserHandleCompat fromUser(FakeUserHandle user) {
+        if (user == null) {
+            return null;
+        } else {
+            return new FakeUserHandleCompat(user);
+        }
+    }
+
+    public static FakeUserHandleCompat intern(FakeUserHandle user) {
+        if (user == null) {
+            return null;
+        }
+        FakeUserHandleCompat compat = find(interned, user);
+        if (compat != null) {
+            return compat;
+        }
+        synchronized (internLock) {
+            final FakeUserHandleCompat[] current = interned;
+            compat = find(current, user);
+            if (compat == null) {
+                compat = new FakeUserHandleCompat(user);
+                final FakeUserHandleCompat[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = compat;
+                interned = grown;
+            }
+            return compat;
+        }
+    }
+
+    private static FakeUserHandleCompat find(FakeUserHandleCompat[] users, FakeUserHandle user) {
+        for (FakeUserHandleCompat compat : users) {
+            if (compat.user.equals(user)) {
+                return compat;
+            }
+        }
+        return null;
+    }
+
+    public FakeUserHandle getUser() {
+        return user;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FakeUserHandleCompat)) {
+            return false;
+        }
+        return user.equals(((FakeUserHandleCompat) other).user);
+    }
+
+    @Override
+    public int hashCode() {
+        return user.hashCode();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cached lookups of {@code UserManagerCompatV17} after {@code enableAndResetCache()}: boxed
+ * serial keys in both directions, guarded by the instance lock. The support library ArrayMap
+ * is not available to plain Java, a HashMap with the same boxing stands in for it.
+ */
+public final class FakeUserManager {
+    private final Map<Long, FakeUserHandleCompat> users = new HashMap<>();
+    private final Map<FakeUserHandleCompat, Long> userToSerialMap = new HashMap<>();
+
+    public FakeUserManager(int profiles) {
+        for (int profile = 0; profile < profiles; profile++) {
+            final FakeUserHandleCompat user = FakeUserHandleCompat.fromUser(new FakeUserHandle(profile));
+            users.put(profile * 10L, user);
+            userToSerialMap.put(user, profile * 10L);
+        }
+    }
+
+    public long getSerialNumberForUser(FakeUserHandleCompat user) {
+        synchronized (this) {
+            Long serial = userToSerialMap.get(user);
+            return serial == null ? 0 : serial;
+        }
+    }
+
+    public FakeUserHandleCompat getUserForSerialNumber(long serialNumber) {
+        synchronized (this) {
+            return users.get(serialNumber);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding every icon of the catalog when all icons are cached and when the cache only holds
+ * a quarter of them, so a sequential pass misses on every entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IconCacheBenchmark {
+    private static final int ICON_SIZE = 48;
+    private static final int DENSITY = 480;
+    private static final int ICON_BYTES = ICON_SIZE * ICON_SIZE * 4;
+
+    @Param({"50", "200", "1000", "10000"})
+    int size;
+
+    private List<FakeActivityInfo> infos;
+    private FakeIconCache hitCache;
+    private FakeIconCache missCache;
+
+    @Setup
+    public void setUp() {
+        infos = FakeCatalog.create(size, 1);
+        hitCache = new FakeIconCache(size * ICON_BYTES, ICON_SIZE);
+        missCache = new FakeIconCache(Math.max(1, size / 4) * ICON_BYTES, ICON_SIZE);
+        for (FakeActivityInfo info : infos) {
+            hitCache.getIcon(info, DENSITY);
+        }
+    }
+
+    @Benchmark
+    public void hit(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(hitCache.getIcon(info, DENSITY));
+        }
+    }
+
+    @Benchmark
+    public void miss(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(missCache.getIcon(info, DENSITY));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading every label of the catalog with and without the memoized label.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LabelCacheBenchmark {
+    @Param({"50", "200", "1000", "10000"})
+    int size;
+
+    private List<FakeActivityInfo> infos;
+
+    @Setup
+    public void setUp() {
+        infos = FakeCatalog.create(size, 1);
+        for (FakeActivityInfo info : infos) {
+            info.getLabel();
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(info.loadLabel().toString());
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(info.getLabel().toString());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.takahirom.multiwindowapplauncher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per entry user work of a catalog load: serial lookups in both directions, wrapping the
+ * framework handle and comparing it with the current user, and hashing users into a set.
+ * The lookups go through the locked, boxed maps UserManagerCompatV17 used before; the
+ * {@code SerialTable} that replaced them is measured by SerialTableBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserLookupBenchmark {
+    @Param({"50", "200", "1000", "10000"})
+    int size;
+
+    @Param({"1", "4"})
+    int profiles;
+
+    private List<FakeActivityInfo> infos;
+    private FakeUserManager userManager;
+    private FakeUserHandleCompat myUser;
+    private FakeUserHandleCompat internedMyUser;
+
+    @Setup
+    public void setUp() {
+        infos = FakeCatalog.create(size, profiles);
+        userManager = new FakeUserManager(profiles);
+        myUser = FakeUserHandleCompat.fromUser(new FakeUserHandle(0));
+        internedMyUser = FakeUserHandleCompat.intern(new FakeUserHandle(0));
+    }
+
+    @Benchmark
+    public void getSerialNumberForUser(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(userManager.getSerialNumberForUser(info.getUser()));
+        }
+    }
+
+    @Benchmark
+    public void getUserForSerialNumber(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(userManager.getUserForSerialNumber(info.getSerialNumber()));
+        }
+    }
+
+    @Benchmark
+    public void fromUserEquals(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(FakeUserHandleCompat.fromUser(info.getUser().getUser()).equals(myUser));
+        }
+    }
+
+    @Benchmark
+    public void internEquals(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(FakeUserHandleCompat.intern(info.getUser().getUser()).equals(internedMyUser));
+        }
+    }
+
+    @Benchmark
+    public Set<FakeUserHandleCompat> hashUsers() {
+        final Set<FakeUserHandleCompat> users = new HashSet<>();
+        for (FakeActivityInfo info : infos) {
+            users.add(info.getUser());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.takahirom.multiwindowapplauncher.catalog;
+
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeActivityInfo;
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeCatalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting the whole catalog by label: the plain String comparison MainActivity used to do,
+ * a Collator comparison per pair, and {@link LabelCollator} keys computed once per entry as
+ * AppCatalogLoader does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogSortBenchmark {
+    @Param({"50", "200", "1000", "10000"})
+    int size;
+
+    private List<FakeActivityInfo> infos;
+
+    @Setup
+    public void setUp() {
+        infos = FakeCatalog.create(size, 1);
+        for (FakeActivityInfo info : infos) {
+            info.getLabel();
+        }
+    }
+
+    @Benchmark
+    public List<FakeActivityInfo> stringCompare() {
+        final List<FakeActivityInfo> sorted = new ArrayList<>(infos);
+        Collections.sort(sorted, new Comparator<FakeActivityInfo>() {
+            @Override
+            public int compare(FakeActivityInfo info, FakeActivityInfo t1) {
+                return info.getLabel().toString().compareTo(t1.getLabel().toString());
+            }
+        });
+        return sorted;
+    }
+
+    @Benchmark
+    public List<FakeActivityInfo> collatorCompare() {
+        final Collator collator = Collator.getInstance();
+        final List<FakeActivityInfo> sorted = new ArrayList<>(infos);
+        Collections.sort(sorted, new Comparator<FakeActivityInfo>() {
+            @Override
+            public int compare(FakeActivityInfo info, FakeActivityInfo t1) {
+                return collator.compare(info.getLabel().toString(), t1.getLabel().toString());
+            }
+        });
+        return sorted;
+    }
+
+    @Benchmark
+    public List<SortEntry> collationKeys() {
+        final List<SortEntry> sorted = new ArrayList<>(infos.size());
+        for (FakeActivityInfo info : infos) {
+            sorted.add(new SortEntry(info.getKey(), LabelCollator.getCollationKey(info.getLabel().toString())));
+        }
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * The parts of AppEntry that LABEL_COMPARATOR looks at.
+     */
+    static final class SortEntry implements Comparable<SortEntry> {
+        final String key;
+        final CollationKey collationKey;
+
+        SortEntry(String key, CollationKey collationKey) {
+            this.key = key;
+            this.collationKey = collationKey;
+        }
+
+        @Override
+        public int compareTo(SortEntry other) {
+            final int result = collationKey.compareTo(other.collationKey);
+            return result != 0 ? result : key.compareTo(other.key);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.takahirom.multiwindowapplauncher.compat;
+
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeActivityInfo;
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeCatalog;
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeUserHandle;
+import com.github.takahirom.multiwindowapplauncher.benchmark.FakeUserHandleCompat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serial lookups of the catalog through the {@link SerialTable} snapshot that
+ * UserManagerCompatV17 publishes, the counterpart of UserLookupBenchmark's locked maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerialTableBenchmark {
+    @Param({"50", "200", "1000", "10000"})
+    int size;
+
+    @Param({"1", "4"})
+    int profiles;
+
+    private List<FakeActivityInfo> infos;
+    private volatile SerialTable<FakeUserHandleCompat> table;
+
+    @Setup
+    public void setUp() {
+        infos = FakeCatalog.create(size, profiles);
+        final long[] serials = new long[profiles];
+        final FakeUserHandleCompat[] users = new FakeUserHandleCompat[profiles];
+        for (int profile = 0; profile < profiles; profile++) {
+            serials[profile] = profile * 10L;
+            users[profile] = FakeUserHandleCompat.intern(new FakeUserHandle(profile));
+        }
+        table = new SerialTable<>(serials, users);
+    }
+
+    @Benchmark
+    public void getSerial(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(table.getSerial(FakeUserHandleCompat.intern(info.getUser().getUser()), 0));
+        }
+    }
+
+    @Benchmark
+    public void getUser(Blackhole blackhole) {
+        for (FakeActivityInfo info : infos) {
+            blackhole.consume(table.getUser(info.getSerialNumber()));
+        }
+    }
+}